@@ -0,0 +1,97 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.MoveList;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the rules engine in the shared module.
+ * <p>
+ * Run with {@code mvn -Pbenchmark package -DskipTests} and then
+ * {@code java -jar benchmark/target/benchmarks.jar}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessEngineBenchmark {
+    static final Map<String, String> POSITIONS = Map.of(
+            "start", Perft.START_POSITION,
+            "middlegame", "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R w",
+            "endgame", Perft.ENDGAME_POSITION,
+            "checkmate", "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w",
+            "stalemate", "7k/5Q2/6K1/8/8/8/8/8 b"
+    );
+
+    @Param({"start", "middlegame", "endgame", "checkmate", "stalemate"})
+    public String position;
+
+    private ChessGame game;
+    private ChessGame.TeamColor toMove;
+    private List<ChessPosition> ownSquares;
+    private final MoveList moveList = new MoveList();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = Perft.loadFen(POSITIONS.get(position));
+        toMove = game.getTeamTurn();
+        ownSquares = new ArrayList<>();
+        game.getBoard().forEachPiece(toMove, (piece, square) -> ownSquares.add(square));
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        ChessBoard board = game.getBoard();
+        for (ChessPosition square : ownSquares) {
+            blackhole.consume(board.getPiece(square).pieceMoves(board, square));
+        }
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : ownSquares) {
+            Collection<ChessMove> moves = game.validMoves(square);
+            blackhole.consume(moves);
+        }
+    }
+
+    // the same legal moves as validMoves, packed into a reused list instead of ChessMove objects
+    @Benchmark
+    public int legalMovesPacked() {
+        game.legalMoves(toMove, moveList);
+        return moveList.size();
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(toMove);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(toMove);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(toMove);
+    }
+
+    @Benchmark
+    public ChessGame.GameStatus status() {
+        return game.status(toMove);
+    }
+}
@@ -0,0 +1,37 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a full perft search. Divide the node count printed by {@link PerftRunner}
+ * by the average time to get nodes per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+    @Param({"start", "middlegame", "endgame"})
+    public String position;
+
+    @Param({"3"})
+    public int depth;
+
+    private ChessGame game;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = Perft.loadFen(ChessEngineBenchmark.POSITIONS.get(position));
+    }
+
+    @Benchmark
+    public long perft() {
+        return Perft.perft(game, depth);
+    }
+}
@@ -0,0 +1,29 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Perft;
+
+/**
+ * Prints perft node counts and nodes per second for the standard benchmark positions.
+ * <p>
+ * Usage: {@code mvn -Pbenchmark -pl benchmark -am exec:java -Dexec.args="4"} where the
+ * argument is the maximum depth (default 4).
+ */
+public class PerftRunner {
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        for (String name : new String[]{"start", "middlegame", "endgame"}) {
+            String fen = ChessEngineBenchmark.POSITIONS.get(name);
+            System.out.println(name + ": " + fen);
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                ChessGame game = Perft.loadFen(fen);
+                long start = System.nanoTime();
+                long nodes = Perft.perft(game, depth);
+                long elapsed = System.nanoTime() - start;
+                long nodesPerSecond = elapsed == 0 ? 0 : nodes * 1_000_000_000L / elapsed;
+                System.out.printf("  depth %d: %,d nodes in %.1f ms (%,d nodes/s)%n",
+                        depth, nodes, elapsed / 1_000_000.0, nodesPerSecond);
+            }
+        }
+    }
+}
@@ -6,8 +6,10 @@ import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.InvalidMoveException;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.ListGamesResult;
 
 public class ChessClient {
@@ -161,7 +163,7 @@ public class ChessClient {
         StringBuilder output = new StringBuilder();
         output.append("Available Games:\n");
         int index = 1;
-        for (GameData game : result.games()) {
+        for (GameSummary game : result.games()) {
             output.append(String.format("%s (ID: %d)\n", game.gameName(), index));
             output.append(String.format("   White: %s\n", game.whiteUsername() != null ? game.whiteUsername() : "EMPTY"));
             output.append(String.format("   Black: %s\n", game.blackUsername() != null ? game.blackUsername() : "EMPTY"));
@@ -191,14 +193,14 @@ public class ChessClient {
             currentView = ViewEnum.VIEW;
             ListGamesResult result = server.listGames(authToken);
             int finalGameId = gameId;
-            GameData game = result.games().stream()
+            result.games().stream()
                 .filter(g -> g.gameID() == finalGameId)
                 .findFirst()
                 .orElseThrow(() -> new Exception("Game not found"));
             state = StateEnum.INGAME;
             currentGameId = gameId;
             currentTeam = teamColor;
-            currentGame = game;
+            // the board arrives with LOAD_GAME once the websocket connects
             return String.format("You joined game %d as %s", oldGameId, color);
         }
         throw new Exception("Expected: <GAME_ID> <WHITE|BLACK>");
@@ -214,10 +216,11 @@ public class ChessClient {
             int oldGameId = gameId;
             gameId = gameIDMap.get(gameId);
             websocket.observe(authToken, gameId);
+            currentGameId = gameId;
             currentView = ViewEnum.OBSERVE;
             ListGamesResult result = server.listGames(authToken);
             int finalGameId = gameId;
-            GameData game = result.games().stream()
+            result.games().stream()
                 .filter(g -> g.gameID() == finalGameId)
                 .findFirst()
                 .orElseThrow(() -> new Exception("Game not found"));
@@ -477,6 +480,21 @@ public class ChessClient {
         repl.printMessage(gameView);
     }
 
+    public void moveApplied(ChessMove move, Integer ply) {
+        // only apply the move if it is the next one for our copy of the board, otherwise ask for the whole game
+        if (currentGame != null && ply != null && currentGame.game().getPly() + 1 == ply) {
+            try {
+                currentGame.game().makeMove(move);
+                repl.printMessage(getGameView(currentGame, currentView, currentTeam == ChessGame.TeamColor.WHITE));
+                return;
+            } catch (InvalidMoveException ignored) {
+            }
+        }
+        if (currentGameId != null) {
+            websocket.resync(authToken, currentGameId);
+        }
+    }
+
     public void notification(String message) {
         if (message.contains("resigned")) {
             currentGame = null;
@@ -47,6 +47,7 @@ public class ClientWebsocketHandler extends Endpoint {
     public void connect(String authToken, Integer gameId, ChessGame.TeamColor teamColor) throws Exception {
         try {
             UserGameCommand command = new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameId);
+            command.requestMoveUpdates();
             this.session.getBasicRemote().sendText(new Gson().toJson(command));
         } catch (IOException ex) {
             System.out.println(EscapeSequences.SET_TEXT_COLOR_RED + "Error connecting to websocket" + EscapeSequences.RESET_TEXT_COLOR);
@@ -57,6 +58,7 @@ public class ClientWebsocketHandler extends Endpoint {
     public void observe(String authToken, Integer gameId) {
         try {
             UserGameCommand command = new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameId);
+            command.requestMoveUpdates();
             this.session.getBasicRemote().sendText(new Gson().toJson(command));
         } catch (IOException ex) {
             ex.printStackTrace();
@@ -73,6 +75,15 @@ public class ClientWebsocketHandler extends Endpoint {
         }
     }
 
+    public void resync(String authToken, Integer gameId) {
+        try {
+            UserGameCommand command = new UserGameCommand(UserGameCommand.CommandType.RESYNC, authToken, gameId);
+            this.session.getBasicRemote().sendText(new Gson().toJson(command));
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
     public void leave(String authToken, Integer gameId, ChessGame.TeamColor teamColor) {
         try {
             UserGameCommand command = new UserGameCommand(UserGameCommand.CommandType.LEAVE, authToken, gameId);
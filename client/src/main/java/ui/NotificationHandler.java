@@ -21,6 +21,9 @@ public class NotificationHandler {
             case ERROR:
                 client.errorMessage(message.getErrorMessage());
                 break;
+            case MOVE_APPLIED:
+                client.moveApplied(message.getMove(), message.getPly());
+                break;
             default:
                 client.loadGame(message.getGameData());
                 break;
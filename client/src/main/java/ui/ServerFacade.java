@@ -8,6 +8,8 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
 import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import com.google.gson.Gson;
@@ -15,6 +17,7 @@ import com.google.gson.Gson;
 import chess.ChessGame;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.ListGamesResult;
 import model.UserData;
 
@@ -51,8 +54,17 @@ public class ServerFacade implements WebSocket.Listener {
     }
 
     public ListGamesResult listGames(String authToken) throws Exception {
+        // the server returns the list a page at a time
+        List<GameSummary> games = new ArrayList<>();
         var path = "/game";
-        return this.makeRequest("GET", path, null, authToken, ListGamesResult.class);
+        while (true) {
+            ListGamesResult page = this.makeRequest("GET", path, null, authToken, ListGamesResult.class);
+            games.addAll(page.games());
+            if (page.nextCursor() == null) {
+                return new ListGamesResult(games);
+            }
+            path = "/game?cursor=" + page.nextCursor();
+        }
     }
 
     public Map createGame(String gameName, String authToken) throws Exception {
@@ -0,0 +1,113 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of auth tokens that are known to be valid.
+ * <p>
+ * Entries expire {@code ttlMillis} after they were cached, so a token deleted by another server
+ * stops working here within that time. Tokens that were not found are never cached. An
+ * invalidated token leaves a marker until its TTL runs out, so a lookup that read the token from
+ * the database just before it was deleted cannot put it back. When the cache is full, expired
+ * entries are swept first and then arbitrary ones are dropped.
+ */
+public class AuthTokenCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public AuthTokenCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    AuthTokenCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the cached auth data for a token, or null if it is not cached or has expired
+     */
+    public AuthData get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt() <= clock.getAsLong()) {
+            entries.remove(token, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.auth() == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.auth();
+    }
+
+    public void put(AuthData auth) {
+        if (auth == null || auth.authToken() == null || auth.username() == null) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(auth.authToken())) {
+            makeRoom();
+        }
+        long now = clock.getAsLong();
+        entries.compute(auth.authToken(), (token, existing) ->
+                existing != null && existing.auth() == null && existing.expiresAt() > now
+                        ? existing
+                        : new Entry(auth, now + ttlMillis));
+    }
+
+    public void invalidate(String token) {
+        if (token != null) {
+            if (entries.size() >= maxEntries && !entries.containsKey(token)) {
+                makeRoom();
+            }
+            entries.put(token, new Entry(null, clock.getAsLong() + ttlMillis));
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public CacheMetrics getMetrics() {
+        return new CacheMetrics(entries.size(), hits.get(), misses.get(), evictions.get());
+    }
+
+    public record CacheMetrics(int size, long hits, long misses, long evictions) {
+    }
+
+    private void makeRoom() {
+        long now = clock.getAsLong();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<String> tokens = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && tokens.hasNext()) {
+            tokens.next();
+            tokens.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // auth is null for a token that has been invalidated
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+}
@@ -1,7 +1,17 @@
 package dataaccess;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.Deque;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DatabaseManager {
     private static final String DATABASE_NAME;
@@ -9,6 +19,26 @@ public class DatabaseManager {
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
 
+    // Connection pool settings, all optional in db.properties:
+    //   db.pool.size                        most connections open at once (default 10)
+    //   db.pool.maxWaitMillis               how long getConnection waits for a free one (default 5000)
+    //   db.pool.idleTimeoutMillis           idle connections older than this are closed (default 600000)
+    //   db.pool.validationTimeoutSeconds    timeout for checking an idle connection is alive (default 2)
+    //   db.pool.validateAfterIdleMillis     only connections idle longer than this are checked (default 30000)
+    private static final int POOL_SIZE;
+    private static final long MAX_WAIT_MILLIS;
+    private static final long IDLE_TIMEOUT_MILLIS;
+    private static final int VALIDATION_TIMEOUT_SECONDS;
+    private static final long VALIDATE_AFTER_IDLE_MILLIS;
+
+    private static final Semaphore PERMITS;
+    private static final Deque<IdleConnection> IDLE = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+    private static final AtomicLong ACQUISITIONS = new AtomicLong();
+    private static final AtomicLong CONNECTIONS_OPENED = new AtomicLong();
+    private static final AtomicLong TOTAL_WAIT_NANOS = new AtomicLong();
+    private static final AtomicLong MAX_WAIT_NANOS = new AtomicLong();
+
     /*
      * Load the database information for the db.properties file.
      */
@@ -27,6 +57,13 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+
+                POOL_SIZE = Integer.parseInt(props.getProperty("db.pool.size", "10"));
+                MAX_WAIT_MILLIS = Long.parseLong(props.getProperty("db.pool.maxWaitMillis", "5000"));
+                IDLE_TIMEOUT_MILLIS = Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "600000"));
+                VALIDATION_TIMEOUT_SECONDS = Integer.parseInt(props.getProperty("db.pool.validationTimeoutSeconds", "2"));
+                VALIDATE_AFTER_IDLE_MILLIS = Long.parseLong(props.getProperty("db.pool.validateAfterIdleMillis", "30000"));
+                PERMITS = new Semaphore(POOL_SIZE, true);
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -39,8 +76,8 @@ public class DatabaseManager {
     static void createDatabase() throws DataAccessException {
         try {
             var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
+            try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                 var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.executeUpdate();
             }
         } catch (SQLException e) {
@@ -49,10 +86,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
+     * Gets a connection to the database from the pool, with the catalog set based upon the
      * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * be short-lived, and you must close the connection when you are done with it, which
+     * hands it back to the pool. The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DbInfo.getConnection(databaseName)) {
@@ -61,12 +98,149 @@ public class DatabaseManager {
      * </code>
      */
     static Connection getConnection() throws DataAccessException {
+        long start = System.nanoTime();
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
-            return conn;
+            if (!PERMITS.tryAcquire(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new DataAccessException("timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("interrupted waiting for a database connection");
+        }
+        long waited = System.nanoTime() - start;
+        TOTAL_WAIT_NANOS.addAndGet(waited);
+        MAX_WAIT_NANOS.accumulateAndGet(waited, Math::max);
+        ACQUISITIONS.incrementAndGet();
+
+        try {
+            Connection conn = takeIdleConnection();
+            if (conn == null) {
+                conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                conn.setCatalog(DATABASE_NAME);
+                CONNECTIONS_OPENED.incrementAndGet();
+            }
+            ACTIVE.incrementAndGet();
+            return lease(conn);
         } catch (SQLException e) {
+            PERMITS.release();
             throw new DataAccessException(e.getMessage());
         }
     }
+
+    /**
+     * @return a snapshot of the connection pool's counters
+     */
+    public static PoolMetrics getPoolMetrics() {
+        long acquisitions = ACQUISITIONS.get();
+        return new PoolMetrics(POOL_SIZE, ACTIVE.get(), IDLE.size(), acquisitions, CONNECTIONS_OPENED.get(),
+                acquisitions == 0 ? 0 : TOTAL_WAIT_NANOS.get() / acquisitions, MAX_WAIT_NANOS.get());
+    }
+
+    public record PoolMetrics(int poolSize, int activeConnections, int idleConnections, long acquisitions,
+                              long connectionsOpened, long averageWaitNanos, long maxWaitNanos) {
+    }
+
+    // most recently returned first, so the connections that stay idle are the ones that time out.
+    // A connection used moments ago is handed out as is; checking it with the server on every
+    // checkout would cost a round trip each time.
+    private static Connection takeIdleConnection() {
+        IdleConnection idle;
+        while ((idle = IDLE.pollFirst()) != null) {
+            long idleMillis = System.currentTimeMillis() - idle.idleSince();
+            if (idleMillis > IDLE_TIMEOUT_MILLIS) {
+                closeQuietly(idle.connection());
+                continue;
+            }
+            if (idleMillis <= VALIDATE_AFTER_IDLE_MILLIS) {
+                return idle.connection();
+            }
+            try {
+                if (idle.connection().isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return idle.connection();
+                }
+            } catch (SQLException ignored) {
+            }
+            closeQuietly(idle.connection());
+        }
+        return null;
+    }
+
+    // closes every idle connection past the idle timeout, wherever it is in the deque
+    private static void closeExpiredIdleConnections() {
+        long cutoff = System.currentTimeMillis() - IDLE_TIMEOUT_MILLIS;
+        for (IdleConnection idle : IDLE) {
+            // only the thread that gets it out of the deque closes it, a checkout may have taken it first
+            if (idle.idleSince() < cutoff && IDLE.removeFirstOccurrence(idle)) {
+                closeQuietly(idle.connection());
+            }
+        }
+    }
+
+    private static void release(Connection conn) {
+        ACTIVE.decrementAndGet();
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            IDLE.addFirst(new IdleConnection(conn, System.currentTimeMillis()));
+        } catch (SQLException e) {
+            closeQuietly(conn);
+        } finally {
+            PERMITS.release();
+        }
+        closeExpiredIdleConnections();
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private record IdleConnection(Connection connection, long idleSince) {
+    }
+
+    // Wraps a pooled connection so that close() hands it back to the pool instead of closing it.
+    // Each checkout gets its own wrapper so a second close() cannot release the connection twice.
+    private static Connection lease(Connection conn) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!closed) {
+                            closed = true;
+                            release(conn);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return closed || conn.isClosed();
+                    }
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    default -> {
+                        if (closed) {
+                            throw new SQLException("Connection has been returned to the pool");
+                        }
+                        try {
+                            return method.invoke(conn, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(DatabaseManager.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
 }
@@ -1,7 +1,9 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
 import model.GameData;
+import model.GameSummary;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -13,10 +15,39 @@ public interface GameDao {
 
     public List<GameData> getAllGames() throws DataAccessException;
 
+    /**
+     * Lists games by id without loading their boards.
+     *
+     * @param afterGameId   only games with a higher id are listed, or null to start at the first game
+     * @param limit         the most games to return
+     * @param openSeatsOnly only list games with a seat nobody has taken
+     */
+    public List<GameSummary> listGames(Integer afterGameId, int limit, boolean openSeatsOnly) throws DataAccessException;
+
     public Integer createGame(String gameName) throws DataAccessException;
 
     public void updateGame(GameData game) throws DataAccessException;
 
+    /**
+     * Appends a move to a game's move log. The stored game is the latest snapshot, and
+     * getGameById replays any logged moves made after it.
+     *
+     * @param ply the move's number in the game, starting at 1
+     */
+    public void appendMove(Integer gameId, int ply, ChessMove move) throws DataAccessException;
+
+    /**
+     * Appends moves to their games' move logs and writes snapshots of games' boards, all in one
+     * transaction. Either everything is written or nothing is. Only the board is taken from each
+     * game; its players and name are left as stored, since those change through updateGame.
+     */
+    public void writeBatch(List<GameMove> moves, List<GameData> games) throws DataAccessException;
+
+    /**
+     * @return every logged move of a game, in the order they were played
+     */
+    public List<ChessMove> getMoves(Integer gameId) throws DataAccessException;
+
     public GameData getGameById(Integer gameId) throws DataAccessException;
 
     public void deleteGameById(Integer gameId) throws DataAccessException;
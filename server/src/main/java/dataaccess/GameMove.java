@@ -0,0 +1,11 @@
+package dataaccess;
+
+import chess.ChessMove;
+
+/**
+ * One entry of a game's move log.
+ *
+ * @param ply the move's number in the game, starting at 1
+ */
+public record GameMove(Integer gameId, int ply, ChessMove move) {
+}
@@ -1,16 +1,53 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import com.google.gson.Gson;
 import model.GameData;
+import model.GameSummary;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
+/**
+ * Keeps games in memory, safe to use from many threads at once.
+ * <p>
+ * Reads never lock: games live in a {@link ConcurrentHashMap} and a game's move log is a
+ * {@link CopyOnWriteArrayList}. Ids come from a counter, so they are never reused after a
+ * delete. When built with a snapshot file, the games are loaded from it and
+ * {@link #saveSnapshot()} writes them back, so a DB-less server can survive a restart.
+ */
 public class MemoryGameDao implements GameDao {
-    Map<Integer, GameData> games = new HashMap<>();
+    Map<Integer, GameData> games = new ConcurrentHashMap<>();
+    Map<Integer, List<ChessMove>> moves = new ConcurrentHashMap<>();
+    private final AtomicInteger lastGameId = new AtomicInteger();
+    private final Path snapshotFile;
+
+    public MemoryGameDao() {
+        this.snapshotFile = null;
+    }
+
+    /**
+     * @param snapshotFile where {@link #saveSnapshot()} writes the games, loaded now if it exists
+     */
+    public MemoryGameDao(Path snapshotFile) throws DataAccessException {
+        this.snapshotFile = snapshotFile;
+        if (Files.exists(snapshotFile)) {
+            loadSnapshot();
+        }
+    }
 
     public List<GameData> getAllGames() throws DataAccessException {
         try {
@@ -20,9 +57,24 @@ public class MemoryGameDao implements GameDao {
         }
     }
 
+    public List<GameSummary> listGames(Integer afterGameId, int limit, boolean openSeatsOnly) throws DataAccessException {
+        try {
+            int after = afterGameId == null ? 0 : afterGameId;
+            return games.values().stream()
+                    .filter(game -> game.gameID() > after)
+                    .filter(game -> !openSeatsOnly || game.whiteUsername() == null || game.blackUsername() == null)
+                    .sorted(Comparator.comparing(GameData::gameID))
+                    .limit(limit)
+                    .map(GameSummary::of)
+                    .toList();
+        } catch (Exception e) {
+            throw new DataAccessException("Error accessing database");
+        }
+    }
+
     public Integer createGame(String gameName) throws DataAccessException {
         try {
-            Integer gameID = games.size() + 1;
+            Integer gameID = lastGameId.incrementAndGet();
             games.put(gameID, new GameData(gameID, null, null, gameName, new ChessGame()));
             return gameID;
         } catch (Exception e) {
@@ -32,16 +84,64 @@ public class MemoryGameDao implements GameDao {
 
     public void updateGame(GameData game) throws DataAccessException {
         try {
-            games.remove(game.gameID());
             games.put(game.gameID(), game);
         } catch (Exception e) {
             throw new DataAccessException("Error accessing database");
         }
     }
 
+    public void appendMove(Integer gameId, int ply, ChessMove move) throws DataAccessException {
+        try {
+            // compute keeps two appends to the same game from interleaving
+            moves.compute(gameId, (id, log) -> {
+                List<ChessMove> current = log != null ? log : new CopyOnWriteArrayList<>();
+                if (ply == current.size() + 1) {
+                    current.add(move);
+                } else if (ply > current.size() + 1) {
+                    throw new IllegalStateException("Error: move " + ply + " is out of order");
+                }
+                return current;
+            });
+        } catch (IllegalStateException e) {
+            throw new DataAccessException(e.getMessage());
+        } catch (Exception e) {
+            throw new DataAccessException("Error accessing database");
+        }
+    }
+
+    public void writeBatch(List<GameMove> moves, List<GameData> games) throws DataAccessException {
+        for (GameMove move : moves) {
+            appendMove(move.gameId(), move.ply(), move.move());
+        }
+        for (GameData game : games) {
+            // only the board: the stored players may be newer than the caller's
+            this.games.computeIfPresent(game.gameID(), (id, stored) ->
+                    new GameData(id, stored.whiteUsername(), stored.blackUsername(), stored.gameName(), game.game()));
+        }
+    }
+
+    public List<ChessMove> getMoves(Integer gameId) {
+        return new ArrayList<>(moves.getOrDefault(gameId, List.of()));
+    }
+
     public GameData getGameById(Integer gameId) {
         try {
-            return games.get(gameId);
+            GameData stored = games.get(gameId);
+            if (stored == null) {
+                return null;
+            }
+            List<ChessMove> log = moves.getOrDefault(gameId, List.of());
+            if (log.size() <= stored.game().getPly()) {
+                return stored;
+            }
+            // the stored game is a snapshot from before the latest logged moves
+            ChessGame game = ChessGameCodec.decode(ChessGameCodec.encode(stored.game()));
+            for (ChessMove move : log.subList(game.getPly(), log.size())) {
+                game.makeMove(move);
+            }
+            GameData replayed = new GameData(gameId, stored.whiteUsername(), stored.blackUsername(), stored.gameName(), game);
+            games.replace(gameId, stored, replayed);
+            return replayed;
         } catch (Exception e) {
             return null;
         }
@@ -50,6 +150,7 @@ public class MemoryGameDao implements GameDao {
     public void deleteGameById(Integer gameId) throws DataAccessException {
         try {
             games.remove(gameId);
+            moves.remove(gameId);
         } catch (Exception e) {
             throw new DataAccessException("Error accessing database");
         }
@@ -57,5 +158,61 @@ public class MemoryGameDao implements GameDao {
 
     public void clear() {
         games.clear();
+        moves.clear();
+        // ids are never reused, even across a clear, so an id a client still holds cannot
+        // name a different game
+    }
+
+    /**
+     * Writes every game to the snapshot file. The file is replaced in one step, so a crash
+     * while saving leaves the previous snapshot in place. Does nothing without a snapshot file.
+     */
+    public void saveSnapshot() throws DataAccessException {
+        if (snapshotFile == null) {
+            return;
+        }
+        List<StoredGame> stored = new ArrayList<>();
+        for (GameData game : games.values()) {
+            byte[] encoded;
+            // the game may be in the middle of a move on another thread
+            synchronized (game.game()) {
+                encoded = ChessGameCodec.encode(game.game());
+            }
+            int[] log = moves.getOrDefault(game.gameID(), List.of()).stream().mapToInt(ChessGameCodec::encodeMove).toArray();
+            stored.add(new StoredGame(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                    Base64.getEncoder().encodeToString(encoded), log));
+        }
+        try {
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.writeString(temp, new Gson().toJson(new Snapshot(lastGameId.get(), stored)));
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Error saving games: " + e.getMessage());
+        }
+    }
+
+    private void loadSnapshot() throws DataAccessException {
+        try {
+            Snapshot snapshot = new Gson().fromJson(Files.readString(snapshotFile), Snapshot.class);
+            for (StoredGame game : snapshot.games()) {
+                games.put(game.gameID(), new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(),
+                        game.gameName(), ChessGameCodec.decode(Base64.getDecoder().decode(game.game()))));
+                List<ChessMove> log = new CopyOnWriteArrayList<>();
+                for (int move : game.moves()) {
+                    log.add(ChessGameCodec.decodeMove(move));
+                }
+                moves.put(game.gameID(), log);
+            }
+            lastGameId.set(snapshot.lastGameId());
+        } catch (IOException | RuntimeException e) {
+            throw new DataAccessException("Error loading games from " + snapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    private record Snapshot(int lastGameId, List<StoredGame> games) {
+    }
+
+    private record StoredGame(Integer gameID, String whiteUsername, String blackUsername, String gameName,
+                              String game, int[] moves) {
     }
 }
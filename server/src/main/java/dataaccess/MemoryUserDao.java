@@ -1,24 +1,56 @@
 package dataaccess;
 
+import com.google.gson.Gson;
 import model.AuthData;
 import model.UserData;
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Keeps users and auth tokens in memory, safe to use from many threads at once.
+ * <p>
+ * When built with a snapshot file, users and tokens are loaded from it and
+ * {@link #saveSnapshot()} writes them back, so a DB-less server can survive a restart.
+ */
 public class MemoryUserDao implements UserDao {
-    Map<String, UserData> userAuth = new HashMap<>();
-    Map<String, UserData> userData = new HashMap<>();
+    Map<String, UserData> userAuth = new ConcurrentHashMap<>();
+    Map<String, UserData> userData = new ConcurrentHashMap<>();
+    private final Path snapshotFile;
+
+    public MemoryUserDao() {
+        this.snapshotFile = null;
+    }
+
+    /**
+     * @param snapshotFile where {@link #saveSnapshot()} writes users and tokens, loaded now if it exists
+     */
+    public MemoryUserDao(Path snapshotFile) throws DataAccessException {
+        this.snapshotFile = snapshotFile;
+        if (Files.exists(snapshotFile)) {
+            loadSnapshot();
+        }
+    }
 
     public AuthData createUser(UserData user) throws DataAccessException {
         String authToken =  UUID.randomUUID().toString();
-        UserData hashedPasswordUser = new UserData(user.username(), user.email(), BCrypt.hashpw(user.password(), BCrypt.gensalt()));
+        UserData hashedPasswordUser = new UserData(user.username(), BCrypt.hashpw(user.password(), BCrypt.gensalt()), user.email());
         try {
-            userData.put(user.username(), hashedPasswordUser);
+            // two registrations racing for the same name: only one may win
+            if (userData.putIfAbsent(user.username(), hashedPasswordUser) != null) {
+                throw new DuplicateInfoException("Username already exists");
+            }
             userAuth.put(authToken, hashedPasswordUser);
             return new AuthData(authToken, user.username());
+        } catch (DuplicateInfoException e) {
+            throw e;
         } catch (Exception e) {
             throw new DataAccessException("Error accessing database");
         }
@@ -27,7 +59,9 @@ public class MemoryUserDao implements UserDao {
     public AuthData login(UserData user) throws DataAccessException {
         String authToken = UUID.randomUUID().toString();
         try {
-            userAuth.put(authToken, user);
+            // keep the stored user, with its hashed password, rather than the login request
+            UserData stored = userData.get(user.username());
+            userAuth.put(authToken, stored != null ? stored : user);
         } catch (Exception e) {
             throw new DataAccessException("Error accessing database");
         }
@@ -53,10 +87,11 @@ public class MemoryUserDao implements UserDao {
 
     public AuthData getAuthByToken(String token) throws DataAccessException {
         try {
-            if (!userAuth.containsKey(token)) {
+            UserData user = token == null ? null : userAuth.get(token);
+            if (user == null) {
                 return new AuthData(null, null);
             }
-            return new AuthData(token, userAuth.get(token).username());
+            return new AuthData(token, user.username());
         } catch (Exception e) {
             throw new DataAccessException("Error accessing database");
         }
@@ -78,6 +113,43 @@ public class MemoryUserDao implements UserDao {
             throw new DataAccessException("Error accessing database");
         }
     }
-}
 
+    /**
+     * Writes every user and token to the snapshot file. The file is replaced in one step, so
+     * a crash while saving leaves the previous snapshot in place. Does nothing without a
+     * snapshot file.
+     */
+    public void saveSnapshot() throws DataAccessException {
+        if (snapshotFile == null) {
+            return;
+        }
+        Map<String, String> tokens = new HashMap<>();
+        userAuth.forEach((token, user) -> tokens.put(token, user.username()));
+        try {
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.writeString(temp, new Gson().toJson(new Snapshot(Map.copyOf(userData), tokens)));
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Error saving users: " + e.getMessage());
+        }
+    }
+
+    private void loadSnapshot() throws DataAccessException {
+        try {
+            Snapshot snapshot = new Gson().fromJson(Files.readString(snapshotFile), Snapshot.class);
+            userData.putAll(snapshot.users());
+            snapshot.tokens().forEach((token, username) -> {
+                UserData user = userData.get(username);
+                if (user != null) {
+                    userAuth.put(token, user);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            throw new DataAccessException("Error loading users from " + snapshotFile + ": " + e.getMessage());
+        }
+    }
 
+    // tokens map to usernames, so a user's details are only stored once
+    private record Snapshot(Map<String, UserData> users, Map<String, String> tokens) {
+    }
+}
@@ -1,7 +1,7 @@
 package dataaccess;
 
 import chess.ChessGame;
-import com.google.gson.Gson;
+import chess.ChessGameCodec;
 
 import java.sql.SQLException;
 
@@ -15,7 +15,8 @@ public class SqlExecuteUpdate {
                 for (var i = 0; i < params.length; i++) {
                     var param = params[i];
                     if (param instanceof String p) { ps.setString(i + 1, p); }
-                    else if (param instanceof ChessGame p) { ps.setString(i + 1, new Gson().toJson(p)); }
+                    else if (param instanceof ChessGame p) { ps.setBytes(i + 1, ChessGameCodec.encode(p)); }
+                    else if (param instanceof byte[] p) { ps.setBytes(i + 1, p); }
                     else if (param instanceof Integer p) { ps.setInt(i + 1, p); }
                     else if (param == null) { ps.setNull(i + 1, NULL); }
                 }
@@ -1,11 +1,17 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import chess.InvalidMoveException;
 import com.google.gson.Gson;
 import model.GameData;
+import model.GameSummary;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
@@ -13,6 +19,13 @@ import static java.sql.Types.NULL;
 
 public class SqlGameDao implements GameDao {
     private static final String TABLE = "GameData";
+    private static final String MOVES_TABLE = "GameMoves";
+    private static final String UPDATE_GAME =
+            "UPDATE GameData SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ? WHERE gameId = ?";
+    private static final String UPDATE_BOARD = "UPDATE GameData SET game = ? WHERE gameId = ?";
+    // a retried append of the same move is harmless
+    private static final String APPEND_MOVE =
+            "INSERT INTO GameMoves (gameId, ply, move) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE move = VALUES(move)";
 
     public SqlGameDao() throws DataAccessException {
         try {
@@ -24,20 +37,35 @@ public class SqlGameDao implements GameDao {
 
     @Override
     public List<GameData> getAllGames() throws DataAccessException {
-        String statement = String.format("SELECT * FROM %s", TABLE);
-        try (var conn = DatabaseManager.getConnection();
-             var ps = conn.prepareStatement(statement);
-             var rs = ps.executeQuery()) {
+        try (var conn = DatabaseManager.getConnection()) {
             var games = new ArrayList<GameData>();
-            Gson gson = new Gson();
-            while (rs.next()) {
-                games.add(new GameData(
-                        rs.getInt("gameId"),
-                        rs.getString("whiteUsername"),
-                        rs.getString("blackUsername"),
-                        rs.getString("gameName"),
-                        gson.fromJson(rs.getString("game"), ChessGame.class)
-                ));
+            var boards = new HashMap<Integer, ChessGame>();
+            try (var ps = conn.prepareStatement(String.format("SELECT * FROM %s", TABLE));
+                 var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int gameId = rs.getInt("gameId");
+                    ChessGame game = ChessGameCodec.decode(rs.getBytes("game"));
+                    boards.put(gameId, game);
+                    games.add(new GameData(
+                            gameId,
+                            rs.getString("whiteUsername"),
+                            rs.getString("blackUsername"),
+                            rs.getString("gameName"),
+                            game
+                    ));
+                }
+            }
+            // every game is being loaded, so one query over the whole move log replays them all
+            String statement = String.format("SELECT gameId, ply, move FROM %s ORDER BY gameId, ply", MOVES_TABLE);
+            try (var ps = conn.prepareStatement(statement);
+                 var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int gameId = rs.getInt("gameId");
+                    ChessGame game = boards.get(gameId);
+                    if (game != null && rs.getInt("ply") > game.getPly()) {
+                        replayMove(gameId, game, rs.getInt("ply"), rs.getInt("move"));
+                    }
+                }
             }
             return games;
         } catch (Exception e) {
@@ -45,6 +73,32 @@ public class SqlGameDao implements GameDao {
         }
     }
 
+    @Override
+    public List<GameSummary> listGames(Integer afterGameId, int limit, boolean openSeatsOnly) throws DataAccessException {
+        String statement = String.format(
+                "SELECT gameId, whiteUsername, blackUsername, gameName FROM %s WHERE gameId > ?%s ORDER BY gameId LIMIT ?",
+                TABLE, openSeatsOnly ? " AND (whiteUsername IS NULL OR blackUsername IS NULL)" : "");
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, afterGameId == null ? 0 : afterGameId);
+            ps.setInt(2, limit);
+            try (var rs = ps.executeQuery()) {
+                var games = new ArrayList<GameSummary>();
+                while (rs.next()) {
+                    games.add(new GameSummary(
+                            rs.getInt("gameId"),
+                            rs.getString("whiteUsername"),
+                            rs.getString("blackUsername"),
+                            rs.getString("gameName")
+                    ));
+                }
+                return games;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
     @Override
     public Integer createGame(String gameName) throws DataAccessException {
         try {
@@ -52,7 +106,7 @@ public class SqlGameDao implements GameDao {
             if (gameName == null || gameName.isEmpty()) {
                 throw new DataAccessException("Error: game name cannot be null");
             }
-            return executeUpdate("INSERT INTO GameData (gameName, game) VALUES (?, ?)", gameName, new Gson().toJson(game));
+            return executeUpdate("INSERT INTO GameData (gameName, game) VALUES (?, ?)", gameName, game);
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -61,7 +115,7 @@ public class SqlGameDao implements GameDao {
     @Override
     public void updateGame(GameData game) throws DataAccessException {
         try {
-            executeUpdate("UPDATE GameData SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ? WHERE gameId = ?",
+            executeUpdate(UPDATE_GAME,
                     game.whiteUsername(), game.blackUsername(), game.gameName(), game.game(), game.gameID());
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
@@ -76,13 +130,12 @@ public class SqlGameDao implements GameDao {
             ps.setInt(1, gameId);
             try (var rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    Gson gson = new Gson();
                     return new GameData(
                             rs.getInt("gameId"),
                             rs.getString("whiteUsername"),
                             rs.getString("blackUsername"),
                             rs.getString("gameName"),
-                            gson.fromJson(rs.getString("game"), ChessGame.class)
+                            replayMoves(conn, gameId, ChessGameCodec.decode(rs.getBytes("game")))
                     );
                 }
             }
@@ -92,9 +145,76 @@ public class SqlGameDao implements GameDao {
         return null;
     }
 
+    @Override
+    public void appendMove(Integer gameId, int ply, ChessMove move) throws DataAccessException {
+        try {
+            executeUpdate(APPEND_MOVE, gameId, ply, ChessGameCodec.encodeMove(move));
+        } catch (Exception e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void writeBatch(List<GameMove> moves, List<GameData> games) throws DataAccessException {
+        if (moves.isEmpty() && games.isEmpty()) {
+            return;
+        }
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!moves.isEmpty()) {
+                    try (var ps = conn.prepareStatement(APPEND_MOVE)) {
+                        for (GameMove move : moves) {
+                            ps.setInt(1, move.gameId());
+                            ps.setInt(2, move.ply());
+                            ps.setInt(3, ChessGameCodec.encodeMove(move.move()));
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                if (!games.isEmpty()) {
+                    try (var ps = conn.prepareStatement(UPDATE_BOARD)) {
+                        for (GameData game : games) {
+                            ps.setBytes(1, ChessGameCodec.encode(game.game()));
+                            ps.setInt(2, game.gameID());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public List<ChessMove> getMoves(Integer gameId) throws DataAccessException {
+        String statement = String.format("SELECT move FROM %s WHERE gameId = ? ORDER BY ply", MOVES_TABLE);
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameId);
+            try (var rs = ps.executeQuery()) {
+                var moves = new ArrayList<ChessMove>();
+                while (rs.next()) {
+                    moves.add(ChessGameCodec.decodeMove(rs.getInt("move")));
+                }
+                return moves;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
     @Override
     public void deleteGameById(Integer gameId) throws DataAccessException {
         try {
+            executeUpdate("DELETE FROM GameMoves WHERE gameId = ?", gameId);
             executeUpdate("DELETE FROM GameData WHERE gameId = ?", gameId);
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
@@ -105,6 +225,7 @@ public class SqlGameDao implements GameDao {
     @Override
     public void clear() throws DataAccessException {
         try {
+            executeUpdate("DELETE FROM GameMoves");
             executeUpdate("DELETE FROM GameData");
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
@@ -112,6 +233,33 @@ public class SqlGameDao implements GameDao {
 
     }
 
+    // The stored game is a snapshot taken after game.getPly() moves. Play any moves logged
+    // since then to bring it up to date.
+    private ChessGame replayMoves(Connection conn, int gameId, ChessGame game) throws SQLException {
+        String statement = String.format("SELECT ply, move FROM %s WHERE gameId = ? AND ply > ? ORDER BY ply", MOVES_TABLE);
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameId);
+            ps.setInt(2, game.getPly());
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    replayMove(gameId, game, rs.getInt("ply"), rs.getInt("move"));
+                }
+            }
+        }
+        return game;
+    }
+
+    private void replayMove(int gameId, ChessGame game, int ply, int move) throws SQLException {
+        if (ply != game.getPly() + 1) {
+            throw new SQLException("Move log for game " + gameId + " is missing move " + (game.getPly() + 1));
+        }
+        try {
+            game.makeMove(ChessGameCodec.decodeMove(move));
+        } catch (InvalidMoveException | IllegalArgumentException e) {
+            throw new SQLException("Move " + ply + " of game " + gameId + " cannot be replayed: " + e.getMessage());
+        }
+    }
+
     private int executeUpdate(String statement, Object... params) throws DataAccessException {
         try {
             SqlExecuteUpdate update = new SqlExecuteUpdate();
@@ -129,11 +277,67 @@ public class SqlGameDao implements GameDao {
                     preparedStatement.executeUpdate();
                 }
             }
+            for (var statement : createGameMovesTableStatment) {
+                try (var preparedStatement = conn.prepareStatement(statement)) {
+                    preparedStatement.executeUpdate();
+                }
+            }
+            if (gameColumnIsJson(conn)) {
+                migrateJsonGames(conn);
+            }
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
 
+    private boolean gameColumnIsJson(Connection conn) throws SQLException {
+        String type = columnType(conn, "game");
+        return type != null && type.toLowerCase().endsWith("text");
+    }
+
+    // the column's data type, or null if the table has no such column
+    private String columnType(Connection conn, String column) throws SQLException {
+        String statement = """
+            SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+            """;
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setString(1, TABLE);
+            ps.setString(2, column);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    // Games used to be stored as Gson JSON in a TEXT column. Convert every row to the
+    // binary encoding in a new column, then swap it in for the old one. Each step can be
+    // rerun: if the server stopped part way, the next start finds the gameBinary column,
+    // converts only the rows still missing it, and finishes the swap, which is one statement.
+    private void migrateJsonGames(Connection conn) throws SQLException {
+        if (columnType(conn, "gameBinary") == null) {
+            try (var ps = conn.prepareStatement("ALTER TABLE GameData ADD COLUMN gameBinary VARBINARY(64)")) {
+                ps.executeUpdate();
+            }
+        }
+        Gson gson = new Gson();
+        try (var select = conn.prepareStatement("SELECT gameId, game FROM GameData WHERE gameBinary IS NULL");
+             var update = conn.prepareStatement("UPDATE GameData SET gameBinary = ? WHERE gameId = ?");
+             var rs = select.executeQuery()) {
+            while (rs.next()) {
+                ChessGame game = gson.fromJson(rs.getString("game"), ChessGame.class);
+                update.setBytes(1, ChessGameCodec.encode(game));
+                update.setInt(2, rs.getInt("gameId"));
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        try (var ps = conn.prepareStatement(
+                "ALTER TABLE GameData DROP COLUMN game, CHANGE COLUMN gameBinary game VARBINARY(64) NOT NULL")) {
+            ps.executeUpdate();
+        }
+    }
+
     private final String[] createGameTableStatment = {
         """
         CREATE TABLE IF NOT EXISTS GameData (
@@ -141,10 +345,21 @@ public class SqlGameDao implements GameDao {
           `whiteUsername` varchar(256),
           `blackUsername` varchar(256),
           `gameName` varchar(256) NOT NULL,
-          `game` TEXT NOT NULL,
+          `game` VARBINARY(64) NOT NULL,
           PRIMARY KEY (`gameId`),
           INDEX(gameName)
         ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
         """
     };
+
+    private final String[] createGameMovesTableStatment = {
+        """
+        CREATE TABLE IF NOT EXISTS GameMoves (
+          `gameId` int NOT NULL,
+          `ply` int NOT NULL,
+          `move` smallint NOT NULL,
+          PRIMARY KEY (`gameId`, `ply`)
+        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+        """
+    };
 }
@@ -13,6 +13,11 @@ import static java.sql.Types.NULL;
 public class SqlUserDao implements UserDao {
     private static final String USERDATATABLE = "UserData";
     private static final String USERAUTHTABLE = "UserAuth";
+    private static final int AUTH_CACHE_SIZE = 10_000;
+    private static final long AUTH_CACHE_TTL_MILLIS = 5 * 60 * 1000;
+
+    // auth lookups happen on every request, so valid tokens are kept in memory
+    private final AuthTokenCache authCache = new AuthTokenCache(AUTH_CACHE_SIZE, AUTH_CACHE_TTL_MILLIS);
 
     public SqlUserDao() throws DataAccessException {
         try {
@@ -31,7 +36,9 @@ public class SqlUserDao implements UserDao {
             userExecuteUpdate(userDataStatement, user.username(), user.email(), hashedPassword);
             String userAuthStatement = String.format("INSERT INTO %s (authToken, username) VALUES (?, ?)", USERAUTHTABLE);
             userExecuteUpdate(userAuthStatement, authToken, user.username());
-            return new AuthData(authToken, user.username());
+            AuthData auth = new AuthData(authToken, user.username());
+            authCache.put(auth);
+            return auth;
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -43,7 +50,9 @@ public class SqlUserDao implements UserDao {
             String authToken = UUID.randomUUID().toString();
             String statement = String.format("INSERT INTO %s (authToken, username) VALUES (?, ?)", USERAUTHTABLE);
             userExecuteUpdate(statement, authToken, user.username());
-            return new AuthData(authToken, user.username());
+            AuthData auth = new AuthData(authToken, user.username());
+            authCache.put(auth);
+            return auth;
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -54,6 +63,7 @@ public class SqlUserDao implements UserDao {
         try {
             String statement = String.format("DELETE FROM %s WHERE authToken = ?", USERAUTHTABLE);
             userExecuteUpdate(statement, authData.authToken());
+            authCache.invalidate(authData.authToken());
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -61,13 +71,19 @@ public class SqlUserDao implements UserDao {
 
     @Override
     public AuthData getAuthByToken(String token) throws DataAccessException {
+        AuthData cached = authCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
         String statement = String.format("SELECT * FROM %s WHERE authToken = ?", USERAUTHTABLE);
         try (var conn = DatabaseManager.getConnection();
              var ps = conn.prepareStatement(statement)) {
             ps.setString(1, token);
             try (var rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return new AuthData(rs.getString("authToken"), rs.getString("username"));
+                    AuthData auth = new AuthData(rs.getString("authToken"), rs.getString("username"));
+                    authCache.put(auth);
+                    return auth;
                 } else {
                     return new AuthData(null, null);
                 }
@@ -101,13 +117,21 @@ public class SqlUserDao implements UserDao {
 
     @Override
     public UserData getUserDataByToken(String token) throws DataAccessException {
-        String statement = String.format("SELECT * FROM %s WHERE authToken = ?", USERAUTHTABLE);
+        // one query on one connection, rather than holding a connection open while
+        // getUserDataByUserData checks out a second one
+        String statement = String.format(
+                "SELECT u.username, u.password, u.email FROM %s a JOIN %s u ON a.username = u.username WHERE a.authToken = ?",
+                USERAUTHTABLE, USERDATATABLE);
         try (var conn = DatabaseManager.getConnection();
              var ps = conn.prepareStatement(statement)) {
             ps.setString(1, token);
             try (var rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return getUserDataByUserData(new UserData(rs.getString("username"), null, null));
+                    return new UserData(
+                            rs.getString("username"),
+                            rs.getString("password"),
+                            rs.getString("email")
+                    );
                 }
             }
         } catch (Exception e) {
@@ -117,11 +141,19 @@ public class SqlUserDao implements UserDao {
     }
 
 
+    /**
+     * @return hit, miss and eviction counts for the auth token cache
+     */
+    public AuthTokenCache.CacheMetrics getAuthCacheMetrics() {
+        return authCache.getMetrics();
+    }
+
     @Override
     public void clear() throws DataAccessException {
         try {
             userExecuteUpdate("DELETE FROM UserData");
             userExecuteUpdate("DELETE FROM UserAuth");
+            authCache.clear();
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
         }
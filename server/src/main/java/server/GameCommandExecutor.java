@@ -0,0 +1,97 @@
+package server;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs commands one game at a time.
+ * <p>
+ * Every game gets a mailbox. Commands for the same game run strictly in the order they were
+ * submitted and never overlap, while mailboxes for different games are drained in parallel on
+ * a shared thread pool. There is no global lock: a mailbox is only touched through
+ * {@link ConcurrentHashMap#compute}, which locks that one key. An empty mailbox is removed, so
+ * finished games do not leave anything behind.
+ */
+public class GameCommandExecutor {
+    // commands run from one mailbox before it goes to the back of the pool's queue,
+    // so one very busy game cannot hold a thread forever
+    private static final int BATCH_SIZE = 32;
+
+    private final ExecutorService pool;
+    private final Map<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public GameCommandExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "game-commands-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a command behind any others for the same game.
+     */
+    public void submit(Integer gameID, Runnable command) {
+        Mailbox[] toSchedule = new Mailbox[1];
+        mailboxes.compute(gameID, (id, mailbox) -> {
+            Mailbox box = mailbox != null ? mailbox : new Mailbox(id);
+            box.commands.add(command);
+            if (!box.scheduled) {
+                box.scheduled = true;
+                toSchedule[0] = box;
+            }
+            return box;
+        });
+        if (toSchedule[0] != null) {
+            pool.execute(toSchedule[0]);
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private class Mailbox implements Runnable {
+        private final Integer gameID;
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        // only read or written inside mailboxes.compute for this game
+        private boolean scheduled;
+
+        Mailbox(Integer gameID) {
+            this.gameID = gameID;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable command = commands.poll();
+                if (command == null) {
+                    break;
+                }
+                try {
+                    command.run();
+                } catch (Exception e) {
+                    System.err.println("Error running command for game " + gameID + ": " + e.getMessage());
+                }
+            }
+            boolean[] more = new boolean[1];
+            mailboxes.compute(gameID, (id, mailbox) -> {
+                if (commands.isEmpty()) {
+                    scheduled = false;
+                    return null;
+                }
+                more[0] = true;
+                return mailbox;
+            });
+            if (more[0]) {
+                pool.execute(this);
+            }
+        }
+    }
+}
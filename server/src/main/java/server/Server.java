@@ -1,7 +1,10 @@
 package server;
 
-import java.util.List;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.google.gson.Gson;
 
@@ -10,12 +13,13 @@ import dataaccess.DataAccessException;
 import dataaccess.DuplicateInfoException;
 import dataaccess.GameDao;
 import dataaccess.InvalidParametersException;
+import dataaccess.MemoryGameDao;
+import dataaccess.MemoryUserDao;
 import dataaccess.SqlGameDao;
 import dataaccess.SqlUserDao;
 import dataaccess.UnauthorizedException;
 import dataaccess.UserDao;
 import model.AuthData;
-import model.GameData;
 import model.ListGamesResult;
 import model.UserData;
 import service.ChessService;
@@ -25,24 +29,53 @@ import spark.Response;
 import spark.Spark;
 
 public class Server {
+    // Storage backend, chosen with system properties:
+    //   chess.storage=memory          keep everything in memory instead of MySQL
+    //   chess.memory.snapshotDir      with memory storage, save to this directory every
+    //                                 30 seconds and on shutdown, and load from it on startup
+    private static final long SNAPSHOT_INTERVAL_SECONDS = 30;
+
     static UserDao topLevelUserDao;
+    static GameDao topLevelGameDao;
 
     static {
         try {
-            topLevelUserDao = new SqlUserDao();
+            if ("memory".equals(System.getProperty("chess.storage"))) {
+                useMemoryStorage(System.getProperty("chess.memory.snapshotDir"));
+            } else {
+                topLevelUserDao = new SqlUserDao();
+                topLevelGameDao = new SqlGameDao();
+            }
         } catch (DataAccessException e) {
             throw new RuntimeException(e);
         }
     }
 
-    static GameDao topLevelGameDao;
-
-    static {
-        try {
-            topLevelGameDao = new SqlGameDao();
-        } catch (DataAccessException e) {
-            throw new RuntimeException(e);
+    private static void useMemoryStorage(String snapshotDir) throws DataAccessException {
+        if (snapshotDir == null) {
+            topLevelUserDao = new MemoryUserDao();
+            topLevelGameDao = new MemoryGameDao();
+            return;
         }
+        MemoryUserDao users = new MemoryUserDao(Path.of(snapshotDir, "users.json"));
+        MemoryGameDao games = new MemoryGameDao(Path.of(snapshotDir, "games.json"));
+        topLevelUserDao = users;
+        topLevelGameDao = games;
+        Runnable save = () -> {
+            try {
+                users.saveSnapshot();
+                games.saveSnapshot();
+            } catch (DataAccessException e) {
+                System.err.println("Error saving snapshot: " + e.getMessage());
+            }
+        };
+        ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "memory-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(save, SNAPSHOT_INTERVAL_SECONDS, SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(save));
     }
 
     ChessService chessService = new ChessService(topLevelUserDao, topLevelGameDao);
@@ -138,9 +171,12 @@ public class Server {
                 throw new InvalidParametersException("Invalid Request");
             }
             userService.verifyAuth(new AuthData(authToken, ""));
-            List<GameData> games = chessService.getAllGames();
+            // GET /game lists every game; add cursor=<nextCursor>&limit=<page size> to page, openSeats=true to filter
+            ListGamesResult response = chessService.listGames(
+                    intQueryParam(req, "cursor"),
+                    intQueryParam(req, "limit"),
+                    Boolean.parseBoolean(req.queryParams("openSeats")));
             res.status(200);
-            ListGamesResult response = new ListGamesResult(games);
             return new Gson().toJson(response);
         } catch (Exception e) {
             return exceptionHandler(e, req, res);
@@ -206,6 +242,18 @@ public class Server {
         }
     }
 
+    private Integer intQueryParam(Request req, String name) {
+        String value = req.queryParams(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidParametersException("Invalid Request");
+        }
+    }
+
     public Object exceptionHandler(Exception e, Request req, Response res) {
         switch (e) {
             case DuplicateInfoException duplicateInfoException -> {
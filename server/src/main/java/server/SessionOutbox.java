@@ -0,0 +1,148 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+/**
+ * Bounded queue of outgoing messages for one websocket session.
+ * <p>
+ * Messages are sent one at a time with Jetty's asynchronous send, so the thread that queues
+ * a message never waits on the network. When a slow client lets its queue fill up, the
+ * configured {@link SlowConsumerPolicy} decides what happens to it.
+ */
+public class SessionOutbox {
+    public enum SlowConsumerPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST,
+        DISCONNECT
+    }
+
+    public record Settings(int maxQueueDepth, SlowConsumerPolicy policy) {
+        /**
+         * Reads chess.ws.maxQueueDepth (default 256) and chess.ws.slowConsumerPolicy
+         * (default DROP_OLDEST) from the system properties.
+         */
+        public static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("chess.ws.maxQueueDepth", 256),
+                    SlowConsumerPolicy.valueOf(System.getProperty("chess.ws.slowConsumerPolicy", "DROP_OLDEST")));
+        }
+    }
+
+    public record Metrics(int queued, long sent, long dropped, long lastLagMillis, long maxLagMillis) {
+    }
+
+    private final Session session;
+    private final Settings settings;
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closed;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    public SessionOutbox(Session session, Settings settings) {
+        this.session = session;
+        this.settings = settings;
+    }
+
+    /**
+     * Queues a message and starts sending if nothing is in flight.
+     */
+    public void offer(String payload) {
+        Queued next;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (queue.size() >= settings.maxQueueDepth()) {
+                switch (settings.policy()) {
+                    case DROP_OLDEST -> {
+                        queue.pollFirst();
+                        dropped.incrementAndGet();
+                    }
+                    case DROP_NEWEST -> {
+                        dropped.incrementAndGet();
+                        return;
+                    }
+                    case DISCONNECT -> {
+                        dropped.addAndGet(queue.size() + 1L);
+                        closeLocked();
+                        session.close(1008, "Client is not keeping up with game updates");
+                        return;
+                    }
+                }
+            }
+            queue.addLast(new Queued(payload, System.nanoTime()));
+            if (sending) {
+                return;
+            }
+            sending = true;
+            next = queue.pollFirst();
+        }
+        send(next);
+    }
+
+    public void close() {
+        synchronized (this) {
+            closeLocked();
+        }
+    }
+
+    public Metrics getMetrics() {
+        synchronized (this) {
+            return new Metrics(queue.size(), sent.get(), dropped.get(), lastLagMillis, maxLagMillis);
+        }
+    }
+
+    private void closeLocked() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void send(Queued message) {
+        try {
+            session.getRemote().sendString(message.payload(), new WriteCallback() {
+                @Override
+                public void writeSuccess() {
+                    long lag = (System.nanoTime() - message.queuedAt()) / 1_000_000;
+                    lastLagMillis = lag;
+                    if (lag > maxLagMillis) {
+                        maxLagMillis = lag;
+                    }
+                    sent.incrementAndGet();
+                    sendNext();
+                }
+
+                @Override
+                public void writeFailed(Throwable error) {
+                    System.err.println("Error sending to " + session.getRemoteAddress() + ": " + error.getMessage());
+                    close();
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("Error sending to " + session.getRemoteAddress() + ": " + e.getMessage());
+            close();
+        }
+    }
+
+    private void sendNext() {
+        Queued next;
+        synchronized (this) {
+            next = closed ? null : queue.pollFirst();
+            if (next == null) {
+                sending = false;
+                return;
+            }
+        }
+        send(next);
+    }
+
+    private record Queued(String payload, long queuedAt) {
+    }
+}
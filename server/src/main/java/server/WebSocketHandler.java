@@ -1,8 +1,10 @@
 package server;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import chess.ChessGame;
@@ -30,32 +32,65 @@ import static websocket.messages.ServerMessage.ServerMessageType.*;
 public class WebSocketHandler {
     private final Map<String, Session> sessions = new ConcurrentHashMap<>();
     private final Map<Session, Integer> gameSessions = new ConcurrentHashMap<>();
+    // the sessions in each game, so a broadcast only touches that game's participants
+    private final Map<Integer, Set<Session>> sessionsByGame = new ConcurrentHashMap<>();
+    private final Map<Session, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    // sessions that asked for MOVE_APPLIED instead of LOAD_GAME after each move
+    private final Set<Session> moveUpdateSessions = ConcurrentHashMap.newKeySet();
+    private final SessionOutbox.Settings outboxSettings;
+    // commands for one game run one after another; different games run in parallel
+    private final GameCommandExecutor commands = new GameCommandExecutor(Runtime.getRuntime().availableProcessors());
     private ChessService chessService;
     private UserService userService;
     private final Gson gson = new Gson();
 
     public WebSocketHandler(ChessService chessService, UserService userService) {
+        this(chessService, userService, SessionOutbox.Settings.fromSystemProperties());
+    }
+
+    public WebSocketHandler(ChessService chessService, UserService userService, SessionOutbox.Settings outboxSettings) {
         this.chessService = new ChessService(chessService.userDao, chessService.gameDao);
         this.userService = new UserService(userService.userDao);
+        this.outboxSettings = outboxSettings;
     }
 
     @OnWebSocketConnect
     public void onConnect(Session session) {
         System.out.println("Connected: " + session.getRemoteAddress());
         sessions.put(session.getRemoteAddress().toString(), session);
+        outboxes.put(session, new SessionOutbox(session, outboxSettings));
     }
 
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
         System.out.println("Closed: " + session.getRemoteAddress());
         sessions.remove(session.getRemoteAddress().toString());
+        removeFromGame(session);
+        moveUpdateSessions.remove(session);
+        SessionOutbox outbox = outboxes.remove(session);
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    /**
+     * @return queue depth, drops and send lag for every open session, keyed by remote address
+     */
+    public Map<String, SessionOutbox.Metrics> getOutboundMetrics() {
+        Map<String, SessionOutbox.Metrics> metrics = new HashMap<>();
+        outboxes.forEach((session, outbox) -> metrics.put(String.valueOf(session.getRemoteAddress()), outbox.getMetrics()));
+        return metrics;
     }
 
     @OnWebSocketMessage
     public void onMessage(Session session, String message) {
         try {
             UserGameCommand command = gson.fromJson(message, UserGameCommand.class);
-            handleSocketMessage(session, command);
+            if (command.getGameID() == null) {
+                handleSocketMessage(session, command);
+            } else {
+                commands.submit(command.getGameID(), () -> handleSocketMessage(session, command));
+            }
         } catch (Exception e) {
             sendErrorToClient(session, "Error processing message: " + e.getMessage());
         }
@@ -72,6 +107,11 @@ public class WebSocketHandler {
         try {
             switch (message.getCommandType()) {
                 case CONNECT:
+                    if (message.wantsMoveUpdates()) {
+                        moveUpdateSessions.add(session);
+                    } else {
+                        moveUpdateSessions.remove(session);
+                    }
                     ChessGame.TeamColor teamColor = getTeamColorFromAuth(message);
                     if (teamColor == null) {
                         observeGame(session, message);
@@ -88,6 +128,9 @@ public class WebSocketHandler {
                 case RESIGN:
                     resignGame(session, message);
                     break;
+                case RESYNC:
+                    resyncGame(session, message);
+                    break;
                 default:
                     sendErrorToClient(session, "Unknown command type");
             }
@@ -103,7 +146,7 @@ public class WebSocketHandler {
             if (game == null) {
                 throw new Exception("Error: game does not exist");
             }
-            gameSessions.put(session, game.gameID());
+            addToGame(session, game.gameID());
             ServerMessage response = new ServerMessage(LOAD_GAME);
             response.addGameData(game);
             sendToClient(session, response);
@@ -127,7 +170,7 @@ public class WebSocketHandler {
             GameData game = chessService.getGameById(message.getGameID());
             response.addGameData(game);
             sendToClient(session, response);
-            gameSessions.put(session, game.gameID());
+            addToGame(session, game.gameID());
             ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
             notification.addNotificationMessage("Player " + authData.username() + " joined the game");
             broadcastToAllButMe(session, notification, game.gameID());
@@ -142,6 +185,9 @@ public class WebSocketHandler {
             GameData game = chessService.getGameById(message.getGameID());
             AuthData authData = userService.getAuthByToken(message.getAuthToken());
             ChessGame.TeamColor teamColor = getTeamColorFromAuth(message);
+            if (teamColor == null) {
+                throw new Exception("Error: observers cannot make moves");
+            }
 
             checkGameEnded(game, teamColor);
             checkIfValidMove(game, message.getMove());
@@ -149,31 +195,26 @@ public class WebSocketHandler {
 
             GameData updateGame = chessService.makeMove(game, message.getMove());
             ChessGame.TeamColor opponentColor = teamColor == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
-            if (updateGame.game().isInCheckmate(opponentColor)) {
-                ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
-                notification.addNotificationMessage(opponentColor + " is in checkmate. " + authData.username() + " wins!");
-                broadcastToAllButMe(session, notification, updateGame.gameID());
-            }
-            else if (checkIfMovePutsGameInStalemate(updateGame, opponentColor)) {
-                ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
-                notification.addNotificationMessage("Game is in stalemate. Game is now over.");
-                broadcastToAllButMe(session, notification, updateGame.gameID());
-            }
-            else if (updateGame.game().isInCheck(opponentColor)) {
-                ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
-                notification.addNotificationMessage(opponentColor + " is in check");
-                broadcastToAllButMe(session, notification, updateGame.gameID());
-            }
-            else {
-                ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
-                notification.addNotificationMessage("Player " + authData.username() + " made a move from"
-                        + message.getMove().getEndPosition().toString()
-                        + " to " + message.getMove().getEndPosition().toString());
-                broadcastToAllButMe(session, notification, updateGame.gameID());
+            ChessGame.GameStatus status = updateGame.game().status(opponentColor);
+            ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
+            switch (status) {
+                case CHECKMATE:
+                    notification.addNotificationMessage(opponentColor + " is in checkmate. " + authData.username() + " wins!");
+                    break;
+                case STALEMATE:
+                    notification.addNotificationMessage("Game is in stalemate. Game is now over.");
+                    break;
+                case CHECK:
+                    notification.addNotificationMessage(opponentColor + " is in check");
+                    break;
+                default:
+                    notification.addNotificationMessage("Player " + authData.username() + " made a move from"
+                            + message.getMove().getEndPosition().toString()
+                            + " to " + message.getMove().getEndPosition().toString());
+                    break;
             }
-            ServerMessage response = new ServerMessage(LOAD_GAME);
-            response.addGameData(updateGame);
-            broadcastToAll(response, updateGame.gameID());
+            broadcastToAllButMe(session, notification, updateGame.gameID());
+            broadcastMove(updateGame, message.getMove(), status);
         } catch (Exception ex) {
             ServerMessage response = new ServerMessage(ERROR);
             response.addErrorMessage(ex.getMessage());
@@ -181,6 +222,21 @@ public class WebSocketHandler {
         }
     }
 
+    private void resyncGame(Session session, UserGameCommand message) {
+        try {
+            verifyAuth(message);
+            GameData game = chessService.getGameById(message.getGameID());
+            if (game == null) {
+                throw new Exception("Error: game does not exist");
+            }
+            ServerMessage response = new ServerMessage(LOAD_GAME);
+            response.addGameData(game);
+            sendToClient(session, response);
+        } catch (Exception ex) {
+            sendErrorToClient(session, "error resyncing game: " + ex.getMessage());
+        }
+    }
+
     private void leaveGame(Session session, UserGameCommand message) {
         try {
             GameData game = chessService.getGameById(message.getGameID());
@@ -191,7 +247,7 @@ public class WebSocketHandler {
             notification.addNotificationMessage(user.username() + " left the game");
             broadcastToAllButMe(session, notification, game.gameID());
             sessions.remove(session.getRemoteAddress().toString());
-            gameSessions.remove(session);
+            removeFromGame(session);
         } catch (Exception ex) {
             sendErrorToClient(session, "error leaving game: " + ex.getMessage());
         }
@@ -215,27 +271,83 @@ public class WebSocketHandler {
     }
 
 
+    // the message is serialized once and the same string is sent to every recipient
     private void broadcastToAllButMe(Session session, ServerMessage message, Integer gameID) {
-        sessions.forEach((key, sesh) -> {
-            if (sesh != session && Objects.equals(gameSessions.get(sesh), gameID)) {
-                sendToClient(sesh, message);
+        String payload = gson.toJson(message);
+        for (Session sesh : sessionsByGame.getOrDefault(gameID, Set.of())) {
+            if (sesh != session) {
+                sendPayload(sesh, payload);
             }
-        });
+        }
     }
 
     private void broadcastToAll(ServerMessage message, Integer gameID) {
-        sessions.forEach((key, sesh) -> {
-            if (Objects.equals(gameSessions.get(sesh), gameID)) {
-                sendToClient(sesh, message);
+        String payload = gson.toJson(message);
+        for (Session sesh : sessionsByGame.getOrDefault(gameID, Set.of())) {
+            sendPayload(sesh, payload);
+        }
+    }
+
+    // sessions that asked for move updates get just the move, the rest get the whole game;
+    // each form is serialized at most once
+    private void broadcastMove(GameData game, ChessMove move, ChessGame.GameStatus status) {
+        String gamePayload = null;
+        String movePayload = null;
+        for (Session sesh : sessionsByGame.getOrDefault(game.gameID(), Set.of())) {
+            if (moveUpdateSessions.contains(sesh)) {
+                if (movePayload == null) {
+                    ServerMessage update = new ServerMessage(MOVE_APPLIED);
+                    update.addMoveApplied(move, game.game().getPly(), status);
+                    movePayload = gson.toJson(update);
+                }
+                sendPayload(sesh, movePayload);
+            } else {
+                if (gamePayload == null) {
+                    ServerMessage update = new ServerMessage(LOAD_GAME);
+                    update.addGameData(game);
+                    gamePayload = gson.toJson(update);
+                }
+                sendPayload(sesh, gamePayload);
             }
+        }
+    }
+
+    private void addToGame(Session session, Integer gameID) {
+        Integer previous = gameSessions.put(session, gameID);
+        if (previous != null && !previous.equals(gameID)) {
+            removeFromIndex(session, previous);
+        }
+        // add inside compute so a concurrent removal of the last session cannot drop the new set
+        sessionsByGame.compute(gameID, (id, set) -> {
+            Set<Session> participants = set != null ? set : ConcurrentHashMap.newKeySet();
+            participants.add(session);
+            return participants;
+        });
+    }
+
+    private void removeFromGame(Session session) {
+        Integer gameID = gameSessions.remove(session);
+        if (gameID != null) {
+            removeFromIndex(session, gameID);
+        }
+    }
+
+    private void removeFromIndex(Session session, Integer gameID) {
+        sessionsByGame.computeIfPresent(gameID, (id, set) -> {
+            set.remove(session);
+            return set.isEmpty() ? null : set;
         });
     }
 
     private void sendToClient(Session session, ServerMessage message) {
-        try {
-            session.getRemote().sendString(gson.toJson(message));
-        } catch (Exception e) {
-            System.err.println("Error sending to " + session.getRemoteAddress() + ": " + e.getMessage());
+        sendPayload(session, gson.toJson(message));
+    }
+
+    // queues the payload on the session's outbox, which sends it asynchronously
+    private void sendPayload(Session session, String payload) {
+        SessionOutbox outbox = outboxes.get(session);
+        if (outbox != null) {
+            outbox.offer(payload);
         }
     }
 
@@ -297,16 +409,10 @@ public class WebSocketHandler {
     }
 
     private void checkGameEnded(GameData game, ChessGame.TeamColor teamColor) throws Exception {
-        if (game.game().isInCheckmate(teamColor)) {
+        ChessGame.GameStatus status = game.game().status(teamColor);
+        if (status == ChessGame.GameStatus.CHECKMATE || status == ChessGame.GameStatus.STALEMATE) {
             throw new Exception("Error: Game has concluded");
         }
-        if (checkIfMovePutsGameInStalemate(game, teamColor)) {
-            throw new Exception("Error: Game has concluded");
-        }
-    }
-
-    private boolean checkIfMovePutsGameInStalemate(GameData game, ChessGame.TeamColor teamColor) {
-        return game.game().isInStalemate(teamColor);
     }
 
     private String convertChessPositionToString(ChessPosition position) {
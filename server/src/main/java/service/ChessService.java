@@ -5,27 +5,81 @@ import chess.ChessMove;
 import dataaccess.*;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
+import model.ListGamesResult;
 import model.UserData;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 public class ChessService {
     public static UserDao userDao;
     public static GameDao gameDao ;
+    // shared by every ChessService so REST and websocket handlers see the same live games
+    private static GameRegistry games;
+    private static final long FLUSH_DELAY_MILLIS = 100;
+    private static final long IDLE_GAME_MILLIS = 30 * 60 * 1000;
+    // a whole game is written every this many moves, so loading one replays at most this many
+    private static final int SNAPSHOT_INTERVAL = 20;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
 
     public ChessService(UserDao userDao, GameDao gameDao) {
         ChessService.userDao = userDao;
         ChessService.gameDao = gameDao;
+        synchronized (ChessService.class) {
+            if (games == null || !games.isBackedBy(gameDao)) {
+                if (games != null) {
+                    games.close();
+                }
+                games = new GameRegistry(gameDao, FLUSH_DELAY_MILLIS, IDLE_GAME_MILLIS, SNAPSHOT_INTERVAL);
+            }
+        }
     }
 
     public void clear() throws Exception {
         userDao.clear();
+        games.clear();
         gameDao.clear();
     }
 
-    public List<GameData> getAllGames() throws Exception {
-        return gameDao.getAllGames();
+    /**
+     * Lists games without their boards. With neither a cursor nor a limit every game is listed,
+     * as before paging; otherwise one page is.
+     *
+     * @param cursor        the nextCursor of the previous page, or null for the first page
+     * @param limit         page size, or null for the default
+     * @param openSeatsOnly only list games a player can still join
+     */
+    public ListGamesResult listGames(Integer cursor, Integer limit, boolean openSeatsOnly) throws Exception {
+        if (cursor == null && limit == null) {
+            return new ListGamesResult(listAllGames(openSeatsOnly), null);
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidParametersException("Error: limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // one extra row tells us whether there is another page
+        List<GameSummary> page = gameDao.listGames(cursor, pageSize + 1, openSeatsOnly);
+        if (page.size() <= pageSize) {
+            return new ListGamesResult(page, null);
+        }
+        page = page.subList(0, pageSize);
+        return new ListGamesResult(new ArrayList<>(page), page.get(pageSize - 1).gameID());
+    }
+
+    // read a page at a time, so no single query returns more than MAX_PAGE_SIZE rows
+    private List<GameSummary> listAllGames(boolean openSeatsOnly) throws Exception {
+        List<GameSummary> all = new ArrayList<>();
+        Integer cursor = null;
+        List<GameSummary> page;
+        do {
+            page = gameDao.listGames(cursor, MAX_PAGE_SIZE, openSeatsOnly);
+            all.addAll(page);
+            cursor = page.isEmpty() ? cursor : page.get(page.size() - 1).gameID();
+        } while (page.size() == MAX_PAGE_SIZE);
+        return all;
     }
 
     public Integer createGame(String gameName) throws Exception {
@@ -36,8 +90,7 @@ public class ChessService {
     }
 
     public void joinGame(Integer gameID, ChessGame.TeamColor teamColor, String username) throws Exception {
-        GameData game = gameDao.getGameById(gameID);
-        if (game == null) {
+        if (games.get(gameID) == null) {
             throw new Exception("Error: game does not exist");
         }
         if (teamColor == null) {
@@ -46,38 +99,53 @@ public class ChessService {
         if (username == null || username.isEmpty()) {
             throw new Exception("Error: username cannot be empty");
         }
-        if ((teamColor == ChessGame.TeamColor.WHITE && game.whiteUsername() != null)
-                || (teamColor == ChessGame.TeamColor.BLACK && game.blackUsername() != null)) {
-            throw new DuplicateInfoException("Error: already taken");
-        }
-        if (teamColor == ChessGame.TeamColor.WHITE) {
-            GameData updatedGame = new GameData(gameID, username, game.blackUsername(), game.gameName(), game.game());
-            gameDao.updateGame(updatedGame);
-        } else {
-            GameData updatedGame = new GameData(gameID, game.whiteUsername(), username, game.gameName(), game.game());
-            gameDao.updateGame(updatedGame);
-        }
+        // moves hold the same lock, so the seat check and the update see the latest players
+        withLiveGame(gameID, current -> {
+            if ((teamColor == ChessGame.TeamColor.WHITE && current.whiteUsername() != null)
+                    || (teamColor == ChessGame.TeamColor.BLACK && current.blackUsername() != null)) {
+                throw new DuplicateInfoException("Error: already taken");
+            }
+            if (teamColor == ChessGame.TeamColor.WHITE) {
+                GameData updatedGame = new GameData(gameID, username, current.blackUsername(), current.gameName(), current.game());
+                games.updateNow(updatedGame);
+            } else {
+                GameData updatedGame = new GameData(gameID, current.whiteUsername(), username, current.gameName(), current.game());
+                games.updateNow(updatedGame);
+            }
+            return current;
+        });
     }
 
     public GameData getGameById(Integer gameID) throws Exception {
-        return gameDao.getGameById(gameID);
+        return games.get(gameID);
     }
 
+    /**
+     * Plays a move on the live copy of the game, which may be newer than the caller's.
+     *
+     * @return the live game after the move
+     */
     public GameData makeMove(GameData game, ChessMove move) throws Exception {
-        game.game().makeMove(move);
-        gameDao.updateGame(game);
-        return game;
+        return withLiveGame(game.gameID(), live -> {
+            live.game().makeMove(move);
+            games.appendMoveLater(live, move);
+            return live;
+        });
     }
 
     public void removePlayerFromGame(GameData game, ChessGame.TeamColor teamColor) throws Exception {
         try {
-            GameData updatedGame;
-            if (teamColor == ChessGame.TeamColor.WHITE) {
-                updatedGame = new GameData(game.gameID(), null, game.blackUsername(), game.gameName(), game.game());
-            } else {
-                updatedGame = new GameData(game.gameID(), game.whiteUsername(), null, game.gameName(), game.game());
-            }
-            gameDao.updateGame(updatedGame);
+            // the caller's copy may be older than the live one, so only the one seat changes
+            withLiveGame(game.gameID(), current -> {
+                GameData updatedGame;
+                if (teamColor == ChessGame.TeamColor.WHITE) {
+                    updatedGame = new GameData(current.gameID(), null, current.blackUsername(), current.gameName(), current.game());
+                } else {
+                    updatedGame = new GameData(current.gameID(), current.whiteUsername(), null, current.gameName(), current.game());
+                }
+                games.updateNow(updatedGame);
+                return current;
+            });
         } catch (Exception e) {
             throw new Exception("Error: could not remove player from game");
         }
@@ -85,10 +153,31 @@ public class ChessService {
 
     public void playerQuitsGame(GameData game) throws Exception {
         try {
-            gameDao.deleteGameById(game.gameID());
+            games.delete(game.gameID());
         } catch (Exception e) {
             throw new Exception("Error: could not remove player from game");
         }
     }
 
+    // Runs the action with the live game while holding the lock on its board. A game evicted and
+    // loaded again between the read and the lock has a new board, so the lock is taken again on
+    // that one; otherwise a move and a seat change could each hold a different lock.
+    private <T> T withLiveGame(Integer gameID, LiveGameAction<T> action) throws Exception {
+        while (true) {
+            GameData game = games.get(gameID);
+            if (game == null) {
+                throw new Exception("Error: game does not exist");
+            }
+            synchronized (game.game()) {
+                GameData current = games.peek(gameID);
+                if (current != null && current.game() == game.game()) {
+                    return action.apply(current);
+                }
+            }
+        }
+    }
+
+    private interface LiveGameAction<T> {
+        T apply(GameData live) throws Exception;
+    }
 }
@@ -0,0 +1,298 @@
+package service;
+
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import dataaccess.DataAccessException;
+import dataaccess.GameDao;
+import dataaccess.GameMove;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the games that are being played in memory, as the authoritative copy.
+ * <p>
+ * Reads are served from memory after the first load from the {@link GameDao}. Moves are
+ * written back asynchronously: {@link #appendMoveLater} queues the move for the game's move
+ * log, to be written at most {@code flushDelayMillis} later. Every {@code snapshotInterval}
+ * moves the whole game is written as well, so loading a game never replays more than that
+ * many moves. Changes to the players go through {@link #updateNow} instead. Games nobody has touched
+ * for {@code idleMillis} are dropped from memory once they have been written.
+ * <p>
+ * A flush writes everything queued across all games as one batch in one transaction (group
+ * commit), and happens early once {@link #MAX_BATCH_SIZE} writes are waiting. The futures
+ * returned for queued writes complete when the batch holding them commits.
+ */
+public class GameRegistry {
+    public static final int MAX_BATCH_SIZE = 256;
+
+    private final GameDao gameDao;
+    private final long flushDelayMillis;
+    private final long idleMillis;
+    private final int snapshotInterval;
+    private final Map<Integer, LiveGame> games = new ConcurrentHashMap<>();
+    // ids only: the game written is read from its live entry at flush time, so a player who
+    // joined after the game was queued is not overwritten
+    private final Set<Integer> pendingWrites = ConcurrentHashMap.newKeySet();
+    // only changed through compute/remove so a game's list is never appended to while it is written
+    private final Map<Integer, List<GameMove>> pendingMoves = new ConcurrentHashMap<>();
+    private final Queue<CompletableFuture<Void>> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedWrites = new AtomicInteger();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GameRegistry(GameDao gameDao, long flushDelayMillis, long idleMillis, int snapshotInterval) {
+        this.gameDao = gameDao;
+        this.flushDelayMillis = flushDelayMillis;
+        this.idleMillis = idleMillis;
+        this.snapshotInterval = snapshotInterval;
+        flusher.scheduleWithFixedDelay(this::evictIdleGames, idleMillis, idleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isBackedBy(GameDao gameDao) {
+        return this.gameDao == gameDao;
+    }
+
+    /**
+     * @return the live game, loading it from the database the first time, or null if it does not exist
+     */
+    public GameData get(Integer gameID) throws DataAccessException {
+        LiveGame live = games.get(gameID);
+        if (live == null) {
+            GameData stored = gameDao.getGameById(gameID);
+            if (stored == null) {
+                return null;
+            }
+            live = games.computeIfAbsent(gameID, id -> new LiveGame(stored));
+        }
+        live.lastAccess = System.currentTimeMillis();
+        return live.game;
+    }
+
+    /**
+     * @return the live copy of a game if it is in memory, otherwise null
+     */
+    public GameData peek(Integer gameID) {
+        LiveGame live = games.get(gameID);
+        return live == null ? null : live.game;
+    }
+
+    /**
+     * Replaces the live game and writes it to the database before returning. Build the
+     * argument from the live copy while holding the lock on its {@code game()}, or a change
+     * made meanwhile (a player joining) is lost.
+     */
+    public void updateNow(GameData game) throws DataAccessException {
+        put(game);
+        pendingWrites.remove(game.gameID());
+        write(game);
+    }
+
+    /**
+     * Schedules the move a game just played to be added to its move log. Only the
+     * {@code ChessGame} is taken from the argument: the live copy keeps its players and name,
+     * since the caller's copy may have been read before someone joined. Call this while holding
+     * the lock on {@code played.game()}, right after the move, so the move is logged under the
+     * right ply.
+     *
+     * @return completes once the move has been written
+     */
+    public CompletableFuture<Void> appendMoveLater(GameData played, ChessMove move) {
+        GameData game = putGame(played);
+        GameMove logged = new GameMove(game.gameID(), game.game().getPly(), move);
+        pendingMoves.compute(game.gameID(), (id, moves) -> {
+            List<GameMove> queued = moves != null ? moves : new ArrayList<>();
+            queued.add(logged);
+            return queued;
+        });
+        if (logged.ply() % snapshotInterval == 0) {
+            pendingWrites.add(game.gameID());
+        }
+        return queued();
+    }
+
+    public void delete(Integer gameID) throws DataAccessException {
+        games.remove(gameID);
+        pendingWrites.remove(gameID);
+        pendingMoves.remove(gameID);
+        gameDao.deleteGameById(gameID);
+    }
+
+    public void clear() {
+        games.clear();
+        pendingWrites.clear();
+        pendingMoves.clear();
+    }
+
+    /**
+     * Writes every pending move and game to the database now, as one transaction.
+     */
+    public void flush() throws DataAccessException {
+        synchronized (flushLock) {
+            flushScheduled.set(false);
+            queuedWrites.set(0);
+            // take the futures before the writes, so a future is never completed by a batch
+            // that missed its write
+            List<CompletableFuture<Void>> batchWaiting = new ArrayList<>();
+            CompletableFuture<Void> future;
+            while ((future = waiting.poll()) != null) {
+                batchWaiting.add(future);
+            }
+
+            Map<Integer, List<GameMove>> movesByGame = new HashMap<>();
+            for (Integer gameID : pendingMoves.keySet()) {
+                List<GameMove> moves = pendingMoves.remove(gameID);
+                if (moves != null) {
+                    movesByGame.put(gameID, moves);
+                }
+            }
+            List<Integer> batchGames = new ArrayList<>();
+            for (Integer gameID : pendingWrites) {
+                if (pendingWrites.remove(gameID)) {
+                    batchGames.add(gameID);
+                }
+            }
+            List<GameMove> batchMoves = new ArrayList<>();
+            movesByGame.values().forEach(batchMoves::addAll);
+
+            try {
+                gameDao.writeBatch(batchMoves, snapshots(batchGames));
+            } catch (DataAccessException e) {
+                requeue(movesByGame, batchGames);
+                batchWaiting.forEach(waiter -> waiter.completeExceptionally(e));
+                throw e;
+            }
+            batchWaiting.forEach(waiter -> waiter.complete(null));
+        }
+    }
+
+    /**
+     * Flushes pending writes and stops the background writer.
+     */
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    // the future is added after the write it waits for, so a flush that takes the future
+    // always takes the write too
+    private CompletableFuture<Void> queued() {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        waiting.add(written);
+        if (queuedWrites.incrementAndGet() == MAX_BATCH_SIZE) {
+            flusher.execute(this::flushQuietly);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            flusher.schedule(this::flushQuietly, flushDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        return written;
+    }
+
+    // copies of the live games, each taken under the game's lock since it may be in the middle
+    // of a move on another thread. Players and board are read together from the live entry.
+    private List<GameData> snapshots(List<Integer> gameIDs) {
+        List<GameData> copies = new ArrayList<>(gameIDs.size());
+        for (Integer gameID : gameIDs) {
+            LiveGame live = games.get(gameID);
+            if (live == null) {
+                continue;
+            }
+            GameData game = live.game;
+            synchronized (game.game()) {
+                GameData current = live.game;
+                copies.add(new GameData(current.gameID(), current.whiteUsername(), current.blackUsername(),
+                        current.gameName(), ChessGameCodec.decode(ChessGameCodec.encode(current.game()))));
+            }
+        }
+        return copies;
+    }
+
+    // the batch was rolled back, so put it all back in front of anything queued meanwhile
+    private void requeue(Map<Integer, List<GameMove>> movesByGame, List<Integer> gameIDs) {
+        movesByGame.forEach((gameID, moves) -> pendingMoves.compute(gameID, (id, queued) -> {
+            List<GameMove> retry = new ArrayList<>(moves);
+            if (queued != null) {
+                retry.addAll(queued);
+            }
+            return retry;
+        }));
+        pendingWrites.addAll(gameIDs);
+    }
+
+    // keeps the live entry's players and name, taking only the ChessGame from the caller
+    private GameData putGame(GameData game) {
+        LiveGame live = games.compute(game.gameID(), (id, existing) -> {
+            if (existing == null) {
+                return new LiveGame(game);
+            }
+            GameData current = existing.game;
+            if (current.game() != game.game()) {
+                existing.game = new GameData(id, current.whiteUsername(), current.blackUsername(), current.gameName(), game.game());
+            }
+            existing.lastAccess = System.currentTimeMillis();
+            return existing;
+        });
+        return live.game;
+    }
+
+    private void put(GameData game) {
+        LiveGame live = games.computeIfAbsent(game.gameID(), id -> new LiveGame(game));
+        live.game = game;
+        live.lastAccess = System.currentTimeMillis();
+    }
+
+    private void write(GameData game) throws DataAccessException {
+        // the game may be in the middle of a move on another thread
+        synchronized (game.game()) {
+            gameDao.updateGame(game);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException e) {
+            System.err.println("Error writing games to the database: " + e.getMessage());
+            if ((!pendingWrites.isEmpty() || !pendingMoves.isEmpty())
+                    && !flusher.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+                flusher.schedule(this::flushQuietly, flushDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // under the flush lock, so a game a flush has taken off the queues stays in memory until it is written
+    private void evictIdleGames() {
+        synchronized (flushLock) {
+            long cutoff = System.currentTimeMillis() - idleMillis;
+            games.entrySet().removeIf(entry -> entry.getValue().lastAccess < cutoff
+                    && !pendingWrites.contains(entry.getKey()) && !pendingMoves.containsKey(entry.getKey()));
+        }
+    }
+
+    private static class LiveGame {
+        volatile GameData game;
+        volatile long lastAccess;
+
+        LiveGame(GameData game) {
+            this.game = game;
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+}
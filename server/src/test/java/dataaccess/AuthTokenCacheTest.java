@@ -0,0 +1,76 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthTokenCacheTest {
+
+    private AtomicLong now;
+    private AuthTokenCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        now = new AtomicLong(1_000);
+        cache = new AuthTokenCache(3, 100, now::get);
+    }
+
+    /**
+     * Positive test case for get.
+     * A cached token should be returned and counted as a hit.
+     */
+    @Test
+    public void testCachedTokenHits() {
+        AuthData auth = new AuthData("token", "user");
+        cache.put(auth);
+        assertEquals(auth, cache.get("token"), "The cached auth should be returned");
+        assertNull(cache.get("other"), "An unknown token should not be found");
+        AuthTokenCache.CacheMetrics metrics = cache.getMetrics();
+        assertEquals(1, metrics.hits(), "One lookup should hit");
+        assertEquals(1, metrics.misses(), "One lookup should miss");
+    }
+
+    /**
+     * Negative test case for get.
+     * A token older than the TTL should no longer be returned.
+     */
+    @Test
+    public void testExpiredTokenMisses() {
+        cache.put(new AuthData("token", "user"));
+        now.addAndGet(100);
+        assertNull(cache.get("token"), "An expired token should not be returned");
+        assertEquals(0, cache.getMetrics().size(), "The expired entry should be removed");
+    }
+
+    /**
+     * Negative test case for invalidate.
+     * A token read from the database just before logout should not be cached again.
+     */
+    @Test
+    public void testInvalidatedTokenStaysOut() {
+        AuthData auth = new AuthData("token", "user");
+        cache.put(auth);
+        cache.invalidate("token");
+        assertNull(cache.get("token"), "A logged out token should not be returned");
+        cache.put(auth);
+        assertNull(cache.get("token"), "A stale lookup should not bring the token back");
+    }
+
+    /**
+     * Positive test case for put.
+     * The cache should never hold more than its maximum number of entries.
+     */
+    @Test
+    public void testBounded() {
+        for (int i = 0; i < 10; i++) {
+            cache.put(new AuthData("token" + i, "user"));
+        }
+        AuthTokenCache.CacheMetrics metrics = cache.getMetrics();
+        assertEquals(3, metrics.size(), "The cache should stay at its maximum size");
+        assertEquals(7, metrics.evictions(), "Entries beyond the maximum should be evicted");
+        assertNotNull(cache.get("token9"), "The newest token should be cached");
+    }
+}
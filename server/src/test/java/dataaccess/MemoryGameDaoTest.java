@@ -0,0 +1,104 @@
+package dataaccess;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryGameDaoTest {
+
+    private MemoryGameDao gameDao;
+
+    @BeforeEach
+    public void setUp() {
+        gameDao = new MemoryGameDao();
+    }
+
+    /**
+     * Positive test case for the createGame method.
+     * Ids should stay unique after a delete and under concurrent creates.
+     */
+    @Test
+    public void testCreateGameIdsUnique() throws Exception {
+        Integer first = gameDao.createGame("First");
+        gameDao.createGame("Second");
+        gameDao.deleteGameById(first);
+        Integer third = gameDao.createGame("Third");
+        assertNotNull(gameDao.getGameById(third), "The new game should exist");
+        assertEquals("Third", gameDao.getGameById(third).gameName(), "A delete should not make ids repeat");
+
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            pool.execute(() -> {
+                try {
+                    ids.add(gameDao.createGame("Concurrent"));
+                } catch (DataAccessException e) {
+                    fail(e.getMessage());
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS), "Creates should finish");
+        assertEquals(400, ids.size(), "Every concurrent create should get its own id");
+    }
+
+    /**
+     * Positive test case for the clear method.
+     * Ids given out after a clear should not repeat ids from before it.
+     */
+    @Test
+    public void testClearKeepsIdsMonotonic() throws Exception {
+        Integer before = gameDao.createGame("Before");
+        gameDao.clear();
+        Integer after = gameDao.createGame("After");
+        assertTrue(after > before, "A clear should not restart the ids");
+        assertNull(gameDao.getGameById(before), "A clear should remove the old game");
+    }
+
+    /**
+     * Positive test case for the saveSnapshot method.
+     * A new DAO loaded from the snapshot should have the same games, moves and next id.
+     */
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        Path file = Files.createTempDirectory("games").resolve("games.json");
+        MemoryGameDao saved = new MemoryGameDao(file);
+        Integer gameId = saved.createGame("Saved");
+        GameData game = saved.getGameById(gameId);
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        game.game().makeMove(move);
+        saved.appendMove(gameId, 1, move);
+        saved.updateGame(new GameData(gameId, "white", null, "Saved", game.game()));
+        saved.saveSnapshot();
+
+        MemoryGameDao loaded = new MemoryGameDao(file);
+        GameData restored = loaded.getGameById(gameId);
+        assertEquals("white", restored.whiteUsername(), "Players should be restored");
+        assertEquals(game.game().getBoard(), restored.game().getBoard(), "The board should be restored");
+        assertEquals(List.of(move), loaded.getMoves(gameId), "The move log should be restored");
+        assertEquals(Integer.valueOf(gameId + 1), loaded.createGame("Next"), "Ids should continue where they left off");
+    }
+
+    /**
+     * Negative test case for the appendMove method.
+     * A move that skips a ply should be rejected.
+     */
+    @Test
+    public void testAppendMoveOutOfOrder() throws Exception {
+        Integer gameId = gameDao.createGame("Gap");
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        assertThrows(DataAccessException.class, () -> gameDao.appendMove(gameId, 2, move));
+    }
+}
@@ -0,0 +1,87 @@
+package server;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCommandExecutorTest {
+
+    private GameCommandExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = new GameCommandExecutor(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Positive test case for submit.
+     * Commands for one game should run in the order they were submitted, one at a time.
+     */
+    @Test
+    public void testSameGameRunsInOrder() throws InterruptedException {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(200);
+        for (int i = 0; i < 200; i++) {
+            int command = i;
+            executor.submit(1, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(command);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS), "Every command should run");
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i), "Commands should run in submission order");
+        }
+        assertEquals(1, maxRunning.get(), "Commands for one game should never overlap");
+    }
+
+    /**
+     * Positive test case for submit.
+     * A slow command in one game should not hold up commands for another game.
+     */
+    @Test
+    public void testOtherGamesNotBlocked() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherRan = new CountDownLatch(1);
+        executor.submit(1, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.submit(2, otherRan::countDown);
+        assertTrue(otherRan.await(5, TimeUnit.SECONDS), "Game 2 should run while game 1 is busy");
+        release.countDown();
+    }
+
+    /**
+     * Negative test case for submit.
+     * A command that throws should not stop later commands for the same game.
+     */
+    @Test
+    public void testFailingCommandDoesNotStopGame() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        executor.submit(1, () -> {
+            throw new IllegalStateException("bad command");
+        });
+        executor.submit(1, ran::countDown);
+        assertTrue(ran.await(5, TimeUnit.SECONDS), "The next command should still run");
+    }
+}
@@ -0,0 +1,102 @@
+package server;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionOutboxTest {
+
+    private List<String> written;
+    private List<WriteCallback> pending;
+    private boolean closed;
+    private Session session;
+
+    @BeforeEach
+    public void setUp() {
+        written = new ArrayList<>();
+        pending = new ArrayList<>();
+        closed = false;
+        // a remote that never finishes a write until the test completes it
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendString") && args.length == 2) {
+                        written.add((String) args[0]);
+                        pending.add((WriteCallback) args[1]);
+                    }
+                    return null;
+                });
+        session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "close" -> {
+                        closed = true;
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    /**
+     * Positive test case for offer.
+     * Only one message should be in flight, and the rest go out in order as writes complete.
+     */
+    @Test
+    public void testMessagesSentInOrder() {
+        SessionOutbox outbox = new SessionOutbox(session, new SessionOutbox.Settings(10, SessionOutbox.SlowConsumerPolicy.DROP_OLDEST));
+        outbox.offer("one");
+        outbox.offer("two");
+        outbox.offer("three");
+        assertEquals(List.of("one"), written, "Only the first message should be in flight");
+
+        pending.get(0).writeSuccess();
+        pending.get(1).writeSuccess();
+        pending.get(2).writeSuccess();
+        assertEquals(List.of("one", "two", "three"), written, "Messages should be sent in order");
+        assertEquals(3, outbox.getMetrics().sent());
+        assertEquals(0, outbox.getMetrics().queued());
+    }
+
+    /**
+     * Negative test case for offer with DROP_OLDEST.
+     * A full queue should lose its oldest waiting message.
+     */
+    @Test
+    public void testDropOldestWhenFull() {
+        SessionOutbox outbox = new SessionOutbox(session, new SessionOutbox.Settings(2, SessionOutbox.SlowConsumerPolicy.DROP_OLDEST));
+        outbox.offer("in flight");
+        outbox.offer("a");
+        outbox.offer("b");
+        outbox.offer("c");
+        assertEquals(1, outbox.getMetrics().dropped());
+
+        pending.get(0).writeSuccess();
+        pending.get(1).writeSuccess();
+        assertEquals(List.of("in flight", "b", "c"), written, "The oldest queued message should be dropped");
+    }
+
+    /**
+     * Negative test case for offer with DISCONNECT.
+     * A full queue should close the session and stop sending.
+     */
+    @Test
+    public void testDisconnectWhenFull() {
+        SessionOutbox outbox = new SessionOutbox(session, new SessionOutbox.Settings(1, SessionOutbox.SlowConsumerPolicy.DISCONNECT));
+        outbox.offer("in flight");
+        outbox.offer("a");
+        outbox.offer("b");
+        assertTrue(closed, "The slow session should be closed");
+
+        pending.get(0).writeSuccess();
+        outbox.offer("c");
+        assertEquals(List.of("in flight"), written, "Nothing more should be sent after disconnecting");
+    }
+}
@@ -3,6 +3,8 @@ package service;
 import chess.ChessGame;
 import dataaccess.*;
 import model.GameData;
+import model.GameSummary;
+import model.ListGamesResult;
 import org.junit.jupiter.api.*;
 import service.ChessService;
 
@@ -37,10 +39,10 @@ public class ChessServiceTest {
         try {
             chessService.createGame("Test Game 1");
             chessService.createGame("Test Game 2");
-            List<GameData> gamesBeforeClear = chessService.getAllGames();
+            List<GameSummary> gamesBeforeClear = chessService.listGames(null, null, false).games();
             assertEquals(2, gamesBeforeClear.size(), "There should be 2 games before clearing");
             chessService.clear();
-            List<GameData> gamesAfterClear = chessService.getAllGames();
+            List<GameSummary> gamesAfterClear = chessService.listGames(null, null, false).games();
             assertEquals(0, gamesAfterClear.size(), "There should be no games after clearing");
         } catch (Exception e) {
             fail("Exception should not be thrown in positive clear test: " + e.getMessage());
@@ -48,38 +50,102 @@ public class ChessServiceTest {
     }
 
     /**
-     * Positive test case for the getAllGames method.
+     * Positive test case for the listGames method without paging parameters.
      * It should successfully return a list of all games.
      */
     @Test
-    public void testGetAllGamesPositive() {
+    public void testListAllGamesPositive() {
         try {
             chessService.createGame("Game 1");
             chessService.createGame("Game 2");
-            List<GameData> games = chessService.getAllGames();
+            List<GameSummary> games = chessService.listGames(null, null, false).games();
             assertNotNull(games, "Games list should not be null");
             assertEquals(2, games.size(), "There should be 2 games in the list");
         } catch (Exception e) {
-            fail("Exception should not be thrown in positive getAllGames test: " + e.getMessage());
+            fail("Exception should not be thrown in positive unpaged listGames test: " + e.getMessage());
         }
     }
 
     /**
-     * Negative test case for the getAllGames method.
+     * Negative test case for the listGames method without paging parameters.
      * It should handle the case where there are no games.
      */
     @Test
-    public void testGetAllGamesNegative() {
+    public void testListAllGamesNegative() {
         try {
             chessService.clear();
-            List<GameData> games = chessService.getAllGames();
+            List<GameSummary> games = chessService.listGames(null, null, false).games();
             assertNotNull(games, "Games list should not be null even when empty");
             assertEquals(0, games.size(), "Games list should be empty");
         } catch (Exception e) {
-            fail("Exception should not be thrown in negative getAllGames test: " + e.getMessage());
+            fail("Exception should not be thrown in negative unpaged listGames test: " + e.getMessage());
         }
     }
 
+    /**
+     * Positive test case for the listGames method.
+     * It should page through the games in id order and filter to open seats.
+     */
+    @Test
+    public void testListGamesPositive() {
+        try {
+            Integer first = chessService.createGame("Game 1");
+            Integer second = chessService.createGame("Game 2");
+            Integer third = chessService.createGame("Game 3");
+            chessService.joinGame(second, ChessGame.TeamColor.WHITE, "white");
+            chessService.joinGame(second, ChessGame.TeamColor.BLACK, "black");
+
+            ListGamesResult page = chessService.listGames(null, 2, false);
+            assertEquals(List.of(first, second), page.games().stream().map(GameSummary::gameID).toList(),
+                    "The first page should hold the first two games");
+            assertEquals(second, page.nextCursor(), "The cursor should point after the last game on the page");
+            assertEquals(GameSummary.Status.IN_PROGRESS, page.games().get(1).status(), "A full game should be in progress");
+
+            page = chessService.listGames(page.nextCursor(), 2, false);
+            assertEquals(List.of(third), page.games().stream().map(GameSummary::gameID).toList(),
+                    "The second page should hold the last game");
+            assertNull(page.nextCursor(), "There should be no page after the last one");
+
+            page = chessService.listGames(null, null, true);
+            assertEquals(List.of(first, third), page.games().stream().map(GameSummary::gameID).toList(),
+                    "Only games with an open seat should be listed");
+        } catch (Exception e) {
+            fail("Exception should not be thrown in positive listGames test: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Positive test case for the listGames method without paging parameters.
+     * It should list every game in one response, however many there are.
+     */
+    @Test
+    public void testListGamesUnpaged() {
+        try {
+            int count = ChessService.DEFAULT_PAGE_SIZE + ChessService.MAX_PAGE_SIZE;
+            for (int i = 0; i < count; i++) {
+                chessService.createGame("Game " + i);
+            }
+            ListGamesResult result = chessService.listGames(null, null, false);
+            assertEquals(count, result.games().size(), "Every game should be listed without paging parameters");
+            assertNull(result.nextCursor(), "An unpaged list should have no cursor");
+        } catch (Exception e) {
+            fail("Exception should not be thrown in unpaged listGames test: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Negative test case for the listGames method.
+     * It should reject a page size outside the allowed range.
+     */
+    @Test
+    public void testListGamesNegative() {
+        assertThrows(InvalidParametersException.class, () -> chessService.listGames(null, 0, false),
+                "A page size of zero should be rejected");
+        assertThrows(InvalidParametersException.class,
+                () -> chessService.listGames(null, ChessService.MAX_PAGE_SIZE + 1, false),
+                "A page size over the maximum should be rejected");
+    }
+
     /**
      * Positive test case for the createGame method.
      * It should successfully create a new game and return its ID.
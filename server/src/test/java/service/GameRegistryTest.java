@@ -0,0 +1,250 @@
+package service;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import dataaccess.*;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameRegistryTest {
+
+    private CountingGameDao gameDao;
+    private GameRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        gameDao = new CountingGameDao();
+        registry = new GameRegistry(gameDao, 20, 60_000, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        registry.close();
+    }
+
+    /**
+     * Positive test case for the get method.
+     * It should only go to the database the first time a game is read.
+     */
+    @Test
+    public void testGetLoadsOnce() throws Exception {
+        Integer gameId = gameDao.createGame("Live Game");
+        GameData first = registry.get(gameId);
+        GameData second = registry.get(gameId);
+        assertSame(first, second, "The same live game should be returned");
+        assertEquals(1, gameDao.reads.get(), "The database should be read once");
+    }
+
+    /**
+     * Negative test case for the get method.
+     * It should return null for a game that does not exist.
+     */
+    @Test
+    public void testGetMissingGame() throws Exception {
+        assertNull(registry.get(999), "A missing game should be null");
+    }
+
+    /**
+     * Positive test case for the appendMoveLater method.
+     * Each move should go to the move log, and the whole game only every snapshot interval.
+     */
+    @Test
+    public void testAppendMoveLaterLogsMoves() throws Exception {
+        Integer gameId = gameDao.createGame("Move Log");
+        GameData game = registry.get(gameId);
+        ChessMove first = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove second = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        ChessMove third = new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null);
+        for (ChessMove move : new ChessMove[]{first, second, third}) {
+            game.game().makeMove(move);
+            registry.appendMoveLater(game, move);
+        }
+        registry.flush();
+        assertEquals(List.of(first, second, third), gameDao.getMoves(gameId), "Every move should be logged in order");
+        assertEquals(1, gameDao.writes.get(), "Only the move at the snapshot interval should write the whole game");
+    }
+
+    /**
+     * Negative test case for the appendMoveLater method.
+     * A move made with a copy read before a player joined should not undo the join.
+     */
+    @Test
+    public void testAppendMoveKeepsLatePlayers() throws Exception {
+        Integer gameId = gameDao.createGame("Late Join");
+        GameData stale = registry.get(gameId);
+        registry.updateNow(new GameData(gameId, "white", null, stale.gameName(), stale.game()));
+
+        ChessMove first = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove second = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        for (ChessMove move : new ChessMove[]{first, second}) {
+            stale.game().makeMove(move);
+            registry.appendMoveLater(stale, move);
+        }
+        assertEquals("white", registry.get(gameId).whiteUsername(), "The live game should keep the joined player");
+        registry.flush();
+        assertEquals("white", gameDao.getGameById(gameId).whiteUsername(), "The snapshot should keep the joined player");
+    }
+
+    /**
+     * Positive test case for the flush method.
+     * Moves from several games should be written as one batch, completing their futures.
+     */
+    @Test
+    public void testFlushWritesOneBatch() throws Exception {
+        Integer firstId = gameDao.createGame("First");
+        Integer secondId = gameDao.createGame("Second");
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        GameData first = registry.get(firstId);
+        GameData second = registry.get(secondId);
+        first.game().makeMove(move);
+        CompletableFuture<Void> firstWritten = registry.appendMoveLater(first, move);
+        second.game().makeMove(move);
+        CompletableFuture<Void> secondWritten = registry.appendMoveLater(second, move);
+
+        registry.flush();
+        assertTrue(firstWritten.isDone() && secondWritten.isDone(), "Both moves should be durable after the flush");
+        assertEquals(1, gameDao.batches.get(), "Both games should be written in one batch");
+        assertEquals(List.of(move), gameDao.getMoves(secondId), "The second game's move should be logged");
+    }
+
+    /**
+     * Negative test case for the flush method.
+     * A failed batch should fail its futures and be written again by the next flush.
+     */
+    @Test
+    public void testFailedBatchIsRetried() throws Exception {
+        Integer gameId = gameDao.createGame("Retried");
+        GameData game = registry.get(gameId);
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        game.game().makeMove(move);
+        gameDao.failBatches = true;
+        CompletableFuture<Void> written = registry.appendMoveLater(game, move);
+
+        assertThrows(DataAccessException.class, () -> registry.flush());
+        assertTrue(written.isCompletedExceptionally(), "The caller should see the failure");
+
+        gameDao.failBatches = false;
+        registry.flush();
+        assertEquals(List.of(move), gameDao.getMoves(gameId), "The move should be written on the retry");
+    }
+
+    /**
+     * Negative test case for the flush method.
+     * A player who joins while a queued snapshot is being written should survive the retry.
+     */
+    @Test
+    public void testRetriedSnapshotKeepsLatePlayers() throws Exception {
+        Integer gameId = gameDao.createGame("Late Join Retry");
+        GameData game = registry.get(gameId);
+        ChessMove first = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove second = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        for (ChessMove move : new ChessMove[]{first, second}) {
+            game.game().makeMove(move);
+            registry.appendMoveLater(game, move);
+        }
+        gameDao.failBatches = true;
+        gameDao.beforeBatch = () -> {
+            GameData live = registry.get(gameId);
+            registry.updateNow(new GameData(gameId, live.whiteUsername(), "black", live.gameName(), live.game()));
+        };
+        assertThrows(DataAccessException.class, () -> registry.flush());
+
+        gameDao.failBatches = false;
+        registry.flush();
+        assertEquals("black", gameDao.getGameById(gameId).blackUsername(), "The retried snapshot should keep the joined player");
+    }
+
+    /**
+     * Negative test case for the appendMoveLater method.
+     * A periodic snapshot should write only the board, so a join stored meanwhile is kept.
+     */
+    @Test
+    public void testSnapshotKeepsPlayersStoredDuringFlush() throws Exception {
+        Integer gameId = gameDao.createGame("Join During Flush");
+        GameData game = registry.get(gameId);
+        ChessMove first = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove second = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        for (ChessMove move : new ChessMove[]{first, second}) {
+            game.game().makeMove(move);
+            registry.appendMoveLater(game, move);
+        }
+        // the snapshot has been copied by now, so it still has no players
+        gameDao.beforeBatch = () -> {
+            GameData live = registry.get(gameId);
+            registry.updateNow(new GameData(gameId, "white", live.blackUsername(), live.gameName(), live.game()));
+        };
+        registry.flush();
+        GameData stored = gameDao.getGameById(gameId);
+        assertEquals("white", stored.whiteUsername(), "The snapshot should not overwrite the joined player");
+        assertEquals(2, stored.game().getPly(), "The snapshot should still write the board");
+    }
+
+    /**
+     * Positive test case for the delete method.
+     * It should drop the live copy and any pending write.
+     */
+    @Test
+    public void testDeleteDropsPendingWrite() throws Exception {
+        Integer gameId = gameDao.createGame("Deleted");
+        GameData game = registry.get(gameId);
+        ChessMove first = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove second = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        for (ChessMove move : new ChessMove[]{first, second}) {
+            game.game().makeMove(move);
+            registry.appendMoveLater(game, move);
+        }
+        registry.delete(gameId);
+        registry.flush();
+        assertEquals(0, gameDao.writes.get(), "A deleted game should not be written");
+        assertEquals(List.of(), gameDao.getMoves(gameId), "A deleted game's moves should not be written");
+        assertNull(registry.get(gameId), "A deleted game should be gone");
+    }
+
+    private static class CountingGameDao extends MemoryGameDao {
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+        volatile boolean failBatches;
+        // runs once at the start of the next batch, as if another thread got in during the flush
+        volatile BatchHook beforeBatch;
+
+        @Override
+        public GameData getGameById(Integer gameId) {
+            reads.incrementAndGet();
+            return super.getGameById(gameId);
+        }
+
+        @Override
+        public void writeBatch(List<GameMove> moves, List<GameData> games) throws DataAccessException {
+            BatchHook hook = beforeBatch;
+            beforeBatch = null;
+            if (hook != null) {
+                hook.run();
+            }
+            if (failBatches) {
+                throw new DataAccessException("database is down");
+            }
+            if (!moves.isEmpty() || !games.isEmpty()) {
+                batches.incrementAndGet();
+            }
+            writes.addAndGet(games.size());
+            super.writeBatch(moves, games);
+        }
+
+        @Override
+        public void updateGame(GameData game) throws DataAccessException {
+            writes.incrementAndGet();
+            super.updateGame(game);
+        }
+    }
+
+    private interface BatchHook {
+        void run() throws DataAccessException;
+    }
+}
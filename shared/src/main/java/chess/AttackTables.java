@@ -0,0 +1,312 @@
+package chess;
+
+/**
+ * Precomputed attack masks for answering "is this square attacked" with a few bit operations
+ * <p>
+ * Squares use the same indexing as the {@link ChessBoard} bitboards:
+ * (row - 1) * 8 + (column - 1).
+ * <p>
+ * Rook and bishop attacks come from magic bitboard tables. The pieces that can block a slider
+ * on a square are multiplied by that square's magic number, and the top bits of the product
+ * index a table of attack sets. The magic numbers were found once by trying random sparse
+ * numbers until one gave no harmful collisions; the tables are filled from them when the
+ * class loads.
+ */
+public final class AttackTables {
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // ray directions as {row step, column step}. The first four run towards higher
+    // square indexes, so the nearest blocker on them is the lowest set bit.
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {0, 1}, {1, 1}, {1, -1},
+            {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}
+    };
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int NORTH_EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int WEST = 5;
+    private static final int SOUTH_WEST = 6;
+    private static final int SOUTH_EAST = 7;
+    private static final long[][] RAYS = new long[8][64];
+    // squares strictly between two squares on a shared rank, file or diagonal, and the whole
+    // line through them (edge to edge). Both are empty for squares that don't share a line.
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    // magic bitboard tables, one per square: the blocker mask (rays without their edge
+    // squares, since a piece there can't block anything further), the magic multiplier,
+    // the shift that leaves one index bit per mask bit, and the attack sets by index
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = {
+            0x0A80001080244000L, 0x8440049000200240L, 0xA080200080100008L, 0x4300086205001000L,
+            0x66002004700A0008L, 0x3200081001040200L, 0x3080008002000100L, 0x0E00004081082204L,
+            0x1400800080304000L, 0x1020401000200040L, 0x4000801000802000L, 0x0002000C20401200L,
+            0x0020800400800800L, 0x0080800400800200L, 0x4004001008020481L, 0x0140800040800100L,
+            0x00C0828000204000L, 0x0040010020408901L, 0x0841010040200010L, 0x240012000A420021L,
+            0x1200808004000800L, 0x0002010100040008L, 0x0200040002011008L, 0x8090020000A04104L,
+            0x0200400080008020L, 0x0200400180200080L, 0x2440410100200010L, 0x2090100080080080L,
+            0x0002050100080010L, 0x8B0A000200100804L, 0x0200100400020108L, 0xC1C2050600004084L,
+            0x0020800101002040L, 0x2000804000802010L, 0x2400820042002011L, 0x1000201001000904L,
+            0x8041001005000800L, 0x4000040080800200L, 0x0002005812000401L, 0xA0408004C0800B00L,
+            0x0410400080288000L, 0x127002432004C000L, 0x2C80408208220010L, 0x8409042010010008L,
+            0x0000080004008080L, 0x0084000402008080L, 0x0418902221240008L, 0x80021302408A0004L,
+            0x0540002080104080L, 0x20200040100020C0L, 0x0040100020048480L, 0x4440080080100080L,
+            0x0802050010080100L, 0x0348020004008080L, 0x8001001402005100L, 0x0882800100004080L,
+            0x2001008000204011L, 0x4082014303142082L, 0x8040090520001041L, 0x001221005000C805L,
+            0x0201001002040801L, 0x1002001001040882L, 0x8000109022010804L, 0xA02201108C004022L
+    };
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = {
+            0x4641140404004014L, 0x8142220809011000L, 0x4030530200701218L, 0x00022082000C0480L,
+            0x8004042124000080L, 0x02AA080208800048L, 0x030A011C82404008L, 0x0000104804500800L,
+            0x0840081044008400L, 0xC101040108020084L, 0x0060080811002200L, 0x0000242401800042L,
+            0x0030011040000000L, 0x0208008804400800L, 0x0000040148080484L, 0x0000008208010402L,
+            0x0010210644100400L, 0x0010008801082080L, 0x180A480800810200L, 0x0400800802044400L,
+            0x8202140401200000L, 0x501200414804242CL, 0x0441014C48080480L, 0x0802282844141400L,
+            0x01044011A0020400L, 0x4030280830018101L, 0x0000881010004010L, 0x0001040080440080L,
+            0x0110030004200802L, 0x0140420100411008L, 0x000C028222621042L, 0x6822004804884804L,
+            0x4008200418122400L, 0xC002121001210144L, 0x4207080101020400L, 0x7422020082180080L,
+            0x2054050201240048L, 0x100604010000B000L, 0x141401104B020805L, 0x00042100223A0082L,
+            0x2004042008880400L, 0x0004024802020480L, 0x008100128A003001L, 0x1000002018000100L,
+            0x1082011024000080L, 0x8820081000200112L, 0x104870210C400200L, 0x011C010408388100L,
+            0x2C00880802100200L, 0x890044008410A800L, 0x0051021042084006L, 0x1410011084044000L,
+            0x1000001002088004L, 0x2006202411820000L, 0x00C0032204130A00L, 0x0820640420444080L,
+            0x1200208808084208L, 0xA000404058084822L, 0x5000010042080420L, 0x84100E9041228800L,
+            0x0000240040028210L, 0x0000002104010200L, 0x01A0441418882102L, 0x0108103040802080L
+    };
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int column = square & 7;
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[square] |= bit(row + step[0], column + step[1]);
+            }
+            for (int[] direction : DIRECTIONS) {
+                KING_ATTACKS[square] |= bit(row + direction[0], column + direction[1]);
+            }
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = bit(row + 1, column - 1) | bit(row + 1, column + 1);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = bit(row - 1, column - 1) | bit(row - 1, column + 1);
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int r = row + DIRECTIONS[d][0];
+                int c = column + DIRECTIONS[d][1];
+                while (bit(r, c) != 0) {
+                    RAYS[d][square] |= bit(r, c);
+                    r += DIRECTIONS[d][0];
+                    c += DIRECTIONS[d][1];
+                }
+            }
+        }
+        for (int from = 0; from < 64; from++) {
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                long ray = RAYS[d][from];
+                long line = ray | RAYS[(d + 4) % 8][from] | 1L << from;
+                for (long rest = ray; rest != 0; rest &= rest - 1) {
+                    int to = Long.numberOfTrailingZeros(rest);
+                    BETWEEN[from][to] = ray & ~RAYS[d][to] & ~(1L << to);
+                    LINE[from][to] = line;
+                }
+            }
+        }
+        for (int square = 0; square < 64; square++) {
+            ROOK_MASKS[square] = blockerMask(square, NORTH, EAST, SOUTH, WEST);
+            BISHOP_MASKS[square] = blockerMask(square, NORTH_EAST, NORTH_WEST, SOUTH_WEST, SOUTH_EAST);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            ROOK_TABLE[square] = new long[1 << Long.bitCount(ROOK_MASKS[square])];
+            BISHOP_TABLE[square] = new long[1 << Long.bitCount(BISHOP_MASKS[square])];
+            fillMagicTable(square, ROOK_MASKS[square], ROOK_MAGICS[square], ROOK_SHIFTS[square], ROOK_TABLE[square], true);
+            fillMagicTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square], BISHOP_SHIFTS[square], BISHOP_TABLE[square], false);
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    // the squares on the given rays whose occupancy matters: everything but the last square
+    private static long blockerMask(int square, int... directions) {
+        long mask = 0;
+        for (int d : directions) {
+            long ray = RAYS[d][square];
+            if (ray != 0) {
+                long edge = d < SOUTH ? Long.highestOneBit(ray) : Long.lowestOneBit(ray);
+                mask |= ray & ~edge;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Stores the attacks for every blocker arrangement on the mask at the slot its magic
+     * product picks. Two arrangements may share a slot only if their attacks are the same.
+     */
+    private static void fillMagicTable(int square, long mask, long magic, int shift, long[] table, boolean rook) {
+        boolean[] filled = new boolean[table.length];
+        // walk every subset of the mask (the "carry-rippler" trick)
+        long subset = 0;
+        do {
+            long attacks = rook ? rayRookAttacks(square, subset) : rayBishopAttacks(square, subset);
+            int index = (int) ((subset * magic) >>> shift);
+            if (filled[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic number for square " + square);
+            }
+            filled[index] = true;
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+    }
+
+    private static long bit(int row, int column) {
+        if (row < 0 || row > 7 || column < 0 || column > 7) {
+            return 0;
+        }
+        return 1L << (row * 8 + column);
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @param color  the team the pawn belongs to
+     * @param square the square the pawn stands on
+     * @return the squares a pawn of that team on that square captures on
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * @param square   the square the rook stands on
+     * @param occupied every occupied square on the board
+     * @return the squares the rook attacks, including the first blocker on each ray
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * @param square   the square the bishop stands on
+     * @param occupied every occupied square on the board
+     * @return the squares the bishop attacks, including the first blocker on each ray
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    // ray-by-ray versions, used to fill the magic tables and to check them in tests
+    static long rayRookAttacks(int square, long occupied) {
+        return positiveRay(NORTH, square, occupied) | positiveRay(EAST, square, occupied)
+                | negativeRay(SOUTH, square, occupied) | negativeRay(WEST, square, occupied);
+    }
+
+    static long rayBishopAttacks(int square, long occupied) {
+        return positiveRay(NORTH_EAST, square, occupied) | positiveRay(NORTH_WEST, square, occupied)
+                | negativeRay(SOUTH_WEST, square, occupied) | negativeRay(SOUTH_EAST, square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared rank, file or diagonal,
+     * or 0 if they don't share one
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square on the rank, file or diagonal through both squares,
+     * or 0 if they don't share one
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    private static long positiveRay(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        return ray ^ RAYS[direction][Long.numberOfTrailingZeros(blockers)];
+    }
+
+    private static long negativeRay(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        return ray ^ RAYS[direction][63 - Long.numberOfLeadingZeros(blockers)];
+    }
+
+    /**
+     * Determines if any piece of the given team attacks a square
+     *
+     * @param board    the board to look at
+     * @param square   the square to test
+     * @param attacker the team doing the attacking
+     * @return True if a piece of the attacking team could capture on that square
+     */
+    public static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attacker) {
+        return isSquareAttacked(board, square, attacker, board.getOccupancy());
+    }
+
+    /**
+     * Same as {@link #isSquareAttacked(ChessBoard, int, ChessGame.TeamColor)}, but sliding
+     * pieces see through to the given occupancy instead of the board's. Lets a king check
+     * the squares it would move to with itself taken off the board.
+     */
+    public static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attacker, long occupied) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if ((pawnAttacks(defender, square) & board.getBitboard(attacker, ChessPiece.PieceType.PAWN)) != 0) {
+            return true;
+        }
+        if ((KNIGHT_ATTACKS[square] & board.getBitboard(attacker, ChessPiece.PieceType.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((KING_ATTACKS[square] & board.getBitboard(attacker, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = board.getBitboard(attacker, ChessPiece.PieceType.QUEEN);
+        if ((rookAttacks(square, occupied) & (board.getBitboard(attacker, ChessPiece.PieceType.ROOK) | queens)) != 0) {
+            return true;
+        }
+        return (bishopAttacks(square, occupied) & (board.getBitboard(attacker, ChessPiece.PieceType.BISHOP) | queens)) != 0;
+    }
+
+    /**
+     * @param board    the board to look at
+     * @param square   the square being attacked
+     * @param attacker the team doing the attacking
+     * @return the squares of every piece of the attacking team that could capture on that square
+     */
+    public static long attackersOf(ChessBoard board, int square, ChessGame.TeamColor attacker) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long occupied = board.getOccupancy();
+        long queens = board.getBitboard(attacker, ChessPiece.PieceType.QUEEN);
+        return (pawnAttacks(defender, square) & board.getBitboard(attacker, ChessPiece.PieceType.PAWN))
+                | (KNIGHT_ATTACKS[square] & board.getBitboard(attacker, ChessPiece.PieceType.KNIGHT))
+                | (KING_ATTACKS[square] & board.getBitboard(attacker, ChessPiece.PieceType.KING))
+                | (rookAttacks(square, occupied) & (board.getBitboard(attacker, ChessPiece.PieceType.ROOK) | queens))
+                | (bishopAttacks(square, occupied) & (board.getBitboard(attacker, ChessPiece.PieceType.BISHOP) | queens));
+    }
+}
@@ -1,9 +1,9 @@
 package chess;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -14,6 +14,15 @@ import java.util.Objects;
 public class ChessBoard {
     private ChessPiece[][] board = new ChessPiece[8][8];
 
+    // One bitboard per (color, type) pair plus an occupancy mask per color.
+    // Bit index is (row - 1) * 8 + (column - 1), so a1 is bit 0 and h8 is bit 63.
+    // These are transient because they are derived from the grid; after Gson
+    // fills in the grid they are rebuilt the first time they are needed.
+    private transient long[] pieceBitboards;
+    private transient long[] colorOccupancy;
+    // Zobrist key of the pieces on the board, kept up to date alongside the bitboards
+    private transient long zobristKey;
+
     public ChessBoard() {
         
     }
@@ -26,6 +35,11 @@ public class ChessBoard {
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
         board[position.getRow() - 1][position.getColumn() - 1] = piece;
+        int square = squareOf(position);
+        clearSquare(square);
+        if (piece != null) {
+            setSquare(square, piece);
+        }
     }
 
     /**
@@ -46,6 +60,7 @@ public class ChessBoard {
      */
     public void removePiece(ChessPosition position) {
         this.board[position.getRow() - 1][position.getColumn() - 1] = null;
+        clearSquare(squareOf(position));
     }
 
 
@@ -89,38 +104,184 @@ public class ChessBoard {
         board[7][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
         board[7][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
         board[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+
+        rebuildBitboards();
     }
 
 
     public Collection<ChessPiece> getAllPieces() {
         Collection<ChessPiece> allPieces = new ArrayList<>();
-        for(int i = 0; i < 8; i++) {
-            for(int j = 0; j < 8; j++) {
-                if(board[i][j] != null) {
-                    allPieces.add(board[i][j]);
-                }
-            }
-        }
+        forEachPiece((piece, position) -> allPieces.add(piece));
         return allPieces;
     }
 
+    /**
+     * Finds the square a piece stands on by identity. Only the squares holding the piece's
+     * team are looked at, found from the occupancy bitboard rather than a scan of the board.
+     *
+     * @param piece the piece to find, or null to find the first empty square
+     * @return the piece's position, or null if it is not on this board
+     */
     public ChessPosition getPiecePosition(ChessPiece piece) {
-        for(int i = 0; i < 8; i++) {
-            for(int j = 0; j < 8; j++) {
-                if(board[i][j] == piece) {
-                    return new ChessPosition(i + 1, j + 1);
-                }
+        long squares = piece == null ? ~getOccupancy() : getOccupancy(piece.getTeamColor());
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            if (getPiece(square) == piece) {
+                return ChessPosition.ofSquare(square);
             }
+            squares &= squares - 1;
         }
         return null;
     }
 
+    /**
+     * @param color the team whose king to find
+     * @return where that team's king stands (the lowest square if there are several), or
+     * null if it has none
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        long kings = getBitboard(color, ChessPiece.PieceType.KING);
+        return kings == 0 ? null : ChessPosition.ofSquare(Long.numberOfTrailingZeros(kings));
+    }
+
+    /**
+     * Calls an action with each of a team's pieces and where it stands, in square order,
+     * visiting only occupied squares
+     *
+     * @param color  the team whose pieces to visit
+     * @param action called with each piece and its position
+     */
+    public void forEachPiece(ChessGame.TeamColor color, BiConsumer<ChessPiece, ChessPosition> action) {
+        forEachSquare(getOccupancy(color), action);
+    }
+
+    /**
+     * Calls an action with every piece on the board and where it stands, in square order
+     *
+     * @param action called with each piece and its position
+     */
+    public void forEachPiece(BiConsumer<ChessPiece, ChessPosition> action) {
+        forEachSquare(getOccupancy(), action);
+    }
+
+    private void forEachSquare(long squares, BiConsumer<ChessPiece, ChessPosition> action) {
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            action.accept(getPiece(square), ChessPosition.ofSquare(square));
+        }
+    }
+
+    /**
+     * Gets the squares holding a given kind of piece
+     *
+     * @param color the team the pieces belong to
+     * @param type  the type of piece
+     * @return bitboard with bit (row - 1) * 8 + (column - 1) set for every matching piece
+     */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bitboards()[bitboardIndex(color, type)];
+    }
+
+    /**
+     * @param color the team to get the occupancy of
+     * @return bitboard of every square holding one of that team's pieces
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        bitboards();
+        return colorOccupancy[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        bitboards();
+        return colorOccupancy[0] | colorOccupancy[1];
+    }
+
+    /**
+     * Gets a chess piece by its bitboard square index
+     *
+     * @param square index from 0 (row 1, column 1) to 63 (row 8, column 8)
+     * @return Either the piece on that square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return board[square >>> 3][square & 7];
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on the board. Side to move is not part of the
+     * board; {@link ChessGame#getZobristKey()} folds it in.
+     *
+     * @return 64-bit hash that is equal for boards with the same pieces on the same squares
+     */
+    public long getZobristKey() {
+        bitboards();
+        return zobristKey;
+    }
+
+    public static int squareOf(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + (position.getColumn() - 1);
+    }
+
+    public static ChessPosition positionOf(int square) {
+        return ChessPosition.ofSquare(square);
+    }
+
+    private static int bitboardIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    private long[] bitboards() {
+        if (pieceBitboards == null) {
+            rebuildBitboards();
+        }
+        return pieceBitboards;
+    }
+
+    private void rebuildBitboards() {
+        pieceBitboards = new long[12];
+        colorOccupancy = new long[2];
+        zobristKey = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = getPiece(square);
+            if (piece != null) {
+                setSquare(square, piece);
+            }
+        }
+    }
+
+    private void setSquare(int square, ChessPiece piece) {
+        long bit = 1L << square;
+        int index = bitboardIndex(piece.getTeamColor(), piece.getPieceType());
+        bitboards()[index] |= bit;
+        colorOccupancy[piece.getTeamColor().ordinal()] |= bit;
+        zobristKey ^= Zobrist.pieceKey(index, square);
+    }
+
+    // clears every bitboard rather than just the one for the piece being replaced, since
+    // addPiece has already put the new piece in the grid, and a lazy rebuild may have added it
+    private void clearSquare(int square) {
+        long bit = 1L << square;
+        long[] bitboards = bitboards();
+        for (int i = 0; i < bitboards.length; i++) {
+            if ((bitboards[i] & bit) != 0) {
+                bitboards[i] &= ~bit;
+                zobristKey ^= Zobrist.pieceKey(i, square);
+            }
+        }
+        long mask = ~bit;
+        colorOccupancy[0] &= mask;
+        colorOccupancy[1] &= mask;
+    }
+
     public ChessBoard makeCopy() {
         ChessBoard newBoard = new ChessBoard();
         for(int i = 0; i < 8; i++) {
             for(int j = 0; j < 8; j++) {
                 if(board[i][j] != null) {
-                    newBoard.addPiece(new ChessPosition(i + 1, j + 1), board[i][j].makeCopy());
+                    newBoard.addPiece(ChessPosition.of(i + 1, j + 1), board[i][j].makeCopy());
                 }
             }
         }
@@ -133,12 +294,18 @@ public class ChessBoard {
         if (this == o) { return true; }
         if (o == null || getClass() != o.getClass()) { return false; }
         ChessBoard that = (ChessBoard) o;
+        // different keys always mean different boards; equal keys still get the full
+        // comparison in case of a collision
+        if (getZobristKey() != that.getZobristKey()) {
+            return false;
+        }
         return Objects.deepEquals(board, that.board);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        long key = getZobristKey();
+        return (int) (key ^ (key >>> 32));
     }
 
     @Override
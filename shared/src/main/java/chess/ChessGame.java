@@ -1,6 +1,10 @@
 package chess;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -11,6 +15,25 @@ import java.util.Collection;
 public class ChessGame {
     private TeamColor currentTeam;
     private ChessBoard board;
+    // number of moves played with makeMove, so a stored game knows where its move log continues
+    private int ply;
+
+    // undo stack for doMove/undoMove. Each entry packs the from square and the to square
+    // into an int, with the captured piece (if any) and, for a promotion, the pawn that was
+    // replaced alongside it. Transient so it never ends up in the serialized game.
+    private transient int[] undoMoves;
+    private transient ChessPiece[] undoCaptured;
+    private transient ChessPiece[] undoPromoted;
+    private transient int undoDepth;
+
+    // legal moves of the current position by start square, filled in one team at a time
+    // the first time they are asked for. Dropped on makeMove/setBoard, and also checked
+    // against the board's Zobrist key in case the board was changed directly.
+    private transient List<ChessMove>[] legalMovesBySquare;
+    private transient int[] legalMoveCounts;
+    private transient long legalMovesKey;
+    // reused for filling in the table above
+    private transient MoveList scratchMoves;
 
     public ChessGame() {
         this.board = new ChessBoard();
@@ -18,6 +41,12 @@ public class ChessGame {
         this.setTeamTurn(TeamColor.WHITE); // White Starts
     }
 
+    // for building a game around an existing board without setting up a starting board first
+    ChessGame(ChessBoard board, TeamColor team) {
+        this.board = board;
+        this.currentTeam = team;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -42,6 +71,16 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Where a game stands for the team about to move
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -54,21 +93,211 @@ public class ChessGame {
         if (piece == null) {
             return null;
         }
-        Collection<ChessMove> allMoves = piece.pieceMoves(this.board, startPosition);
-        allMoves = allMoves.stream().filter(
-                move -> {
-                    try {
-                        ChessGame game = new ChessGame();
-                        game.setBoard(this.board.makeCopy());
-                        game.setTeamTurn(piece.getTeamColor());
-                        game.makeMove(move);
-                        return true;
-                    } catch (InvalidMoveException e) {
-                        return false;
+        return legalMovesBySquare(piece.getTeamColor())[ChessBoard.squareOf(startPosition)];
+    }
+
+    /**
+     * Fills a move list with every legal move for a team in the current position, packed as
+     * {@link PackedMove ints}. Allocates nothing, so a search can reuse one list per depth.
+     * Moves come out grouped by start square in square order.
+     *
+     * @param teamColor the team to get moves for
+     * @param moves     cleared, then filled with the moves
+     */
+    public void legalMoves(TeamColor teamColor, MoveList moves) {
+        moves.clear();
+        long kings = this.board.getBitboard(teamColor, ChessPiece.PieceType.KING);
+        if (Long.bitCount(kings) == 1) {
+            int king = Long.numberOfTrailingZeros(kings);
+            generateLegalMoves(teamColor, king, AttackTables.attackersOf(this.board, king, opponent(teamColor)), moves);
+        } else {
+            generateByTrial(teamColor, moves);
+        }
+    }
+
+    /**
+     * Works out whether a team is in check, checkmate or stalemate in one pass. The check
+     * test is shared with the move generation, which stops at the first legal move found.
+     *
+     * @param teamColor the team to evaluate, normally the team about to move
+     * @return CHECKMATE or STALEMATE if the team has no legal moves, depending on whether it
+     * is in check, otherwise CHECK or NORMAL
+     * @throws IllegalArgumentException if teamColor is null
+     */
+    public GameStatus status(TeamColor teamColor) {
+        if (teamColor == null) {
+            throw new IllegalArgumentException("Team color cannot be null");
+        }
+        long kings = this.board.getBitboard(teamColor, ChessPiece.PieceType.KING);
+        boolean inCheck;
+        boolean canMove;
+        if (Long.bitCount(kings) == 1) {
+            int king = Long.numberOfTrailingZeros(kings);
+            long checkers = AttackTables.attackersOf(this.board, king, opponent(teamColor));
+            inCheck = checkers != 0;
+            int cached = cachedMoveCount(teamColor);
+            canMove = cached >= 0 ? cached > 0 : generateLegalMoves(teamColor, king, checkers, null);
+        } else {
+            inCheck = isInCheck(teamColor);
+            canMove = hasLegalMove(teamColor);
+        }
+        if (!canMove) {
+            return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        return inCheck ? GameStatus.CHECK : GameStatus.NORMAL;
+    }
+
+    // the number of legal moves already worked out for this position, or -1
+    private int cachedMoveCount(TeamColor teamColor) {
+        if (this.legalMovesBySquare == null || this.legalMovesKey != this.board.getZobristKey()) {
+            return -1;
+        }
+        return this.legalMoveCounts[teamColor.ordinal()];
+    }
+
+    private List<ChessMove>[] legalMovesBySquare(TeamColor teamColor) {
+        long key = this.board.getZobristKey();
+        if (this.legalMovesBySquare == null || this.legalMovesKey != key) {
+            this.legalMovesBySquare = newMoveTable();
+            this.legalMoveCounts = new int[]{-1, -1};
+            this.legalMovesKey = key;
+        }
+        if (this.legalMoveCounts[teamColor.ordinal()] < 0) {
+            if (this.scratchMoves == null) {
+                this.scratchMoves = new MoveList();
+            }
+            MoveList moves = this.scratchMoves;
+            legalMoves(teamColor, moves);
+            int next = 0;
+            long pieces = this.board.getOccupancy(teamColor);
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                List<ChessMove> legal = new ArrayList<>();
+                while (next < moves.size() && PackedMove.from(moves.get(next)) == square) {
+                    legal.add(PackedMove.toChessMove(moves.get(next++)));
+                }
+                this.legalMovesBySquare[square] = Collections.unmodifiableList(legal);
+            }
+            this.legalMoveCounts[teamColor.ordinal()] = moves.size();
+        }
+        return this.legalMovesBySquare;
+    }
+
+    /**
+     * Adds the team's legal moves without playing any of them. Works out up front which
+     * pieces are pinned to the king and which squares stop a check, so a move only has to
+     * land inside its piece's mask. Only the king's own moves look at attacks.
+     *
+     * @param checkers the enemy pieces attacking the king
+     * @param moves    where to add the moves, or null to stop at the first legal move
+     * @return True if the team has a legal move
+     */
+    private boolean generateLegalMoves(TeamColor teamColor, int king, long checkers, MoveList moves) {
+        TeamColor enemy = opponent(teamColor);
+        long evasions;
+        if (checkers == 0) {
+            evasions = -1L;
+        } else if (Long.bitCount(checkers) == 1) {
+            // take the checker, or block it if it is a slider
+            evasions = checkers | AttackTables.between(king, Long.numberOfTrailingZeros(checkers));
+        } else {
+            // double check, only the king can move
+            evasions = 0;
+        }
+        long pinned = pinnedPieces(teamColor, king);
+        // with the king lifted off, a slider checking along a line still covers the square behind it
+        long occupiedWithoutKing = this.board.getOccupancy() & ~(1L << king);
+
+        boolean found = false;
+        long pieces = this.board.getOccupancy(teamColor);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            ChessPiece piece = this.board.getPiece(square);
+            long targets = MoveGenerator.targets(this.board, square, piece);
+            if (square == king) {
+                for (long rest = targets; rest != 0; rest &= rest - 1) {
+                    int to = Long.numberOfTrailingZeros(rest);
+                    if (AttackTables.isSquareAttacked(this.board, to, enemy, occupiedWithoutKing)) {
+                        targets &= ~(1L << to);
                     }
                 }
-        ).toList();
-        return allMoves;
+            } else {
+                targets &= evasions;
+                if ((pinned & 1L << square) != 0) {
+                    targets &= AttackTables.line(king, square);
+                }
+            }
+            if (targets != 0) {
+                if (moves == null) {
+                    return true;
+                }
+                found = true;
+                MoveGenerator.addMoves(this.board, square, piece, targets, moves);
+            }
+        }
+        return found;
+    }
+
+    // pieces of the team that are the only thing between their king and an enemy slider
+    private long pinnedPieces(TeamColor teamColor, int king) {
+        TeamColor enemy = opponent(teamColor);
+        long enemies = this.board.getOccupancy(enemy);
+        long queens = this.board.getBitboard(enemy, ChessPiece.PieceType.QUEEN);
+        // looking through the team's own pieces finds sliders that would attack the king if one moved
+        long snipers = (AttackTables.rookAttacks(king, enemies) & (this.board.getBitboard(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishopAttacks(king, enemies) & (this.board.getBitboard(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long occupied = this.board.getOccupancy();
+        long pinned = 0;
+        while (snipers != 0) {
+            long blockers = AttackTables.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers;
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned & this.board.getOccupancy(teamColor);
+    }
+
+    // for boards without exactly one king for the team, where pins and checks don't have a
+    // single square to be measured from: play each move and keep it if no king is left attacked
+    private void generateByTrial(TeamColor teamColor, MoveList moves) {
+        MoveGenerator.generate(this.board, teamColor, moves);
+        int kept = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            doMove(move);
+            if (!isInCheck(teamColor)) {
+                moves.set(kept++, move);
+            }
+            undoMove();
+        }
+        moves.truncate(kept);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ChessMove>[] newMoveTable() {
+        return new List[64];
+    }
+
+    private boolean hasLegalMove(TeamColor teamColor) {
+        int cached = cachedMoveCount(teamColor);
+        if (cached >= 0) {
+            return cached > 0;
+        }
+        long kings = this.board.getBitboard(teamColor, ChessPiece.PieceType.KING);
+        if (Long.bitCount(kings) == 1) {
+            int king = Long.numberOfTrailingZeros(kings);
+            return generateLegalMoves(teamColor, king, AttackTables.attackersOf(this.board, king, opponent(teamColor)), null);
+        }
+        legalMovesBySquare(teamColor);
+        return this.legalMoveCounts[teamColor.ordinal()] > 0;
+    }
+
+    private void clearLegalMoves() {
+        this.legalMovesBySquare = null;
+        this.legalMoveCounts = null;
     }
 
     /**
@@ -91,25 +320,23 @@ public class ChessGame {
         if (endPiece != null && endPiece.getTeamColor() == this.currentTeam) {
             throw new InvalidMoveException("Cannot take own piece");
         }
-        if (move.getPromotionPiece() != null) {
-            piece.setPieceType(move.getPromotionPiece());
-        }
         if (!possibleMoves.contains(move)) {
             throw new InvalidMoveException("Move not possible for piece");
         }
-        ChessGame game = new ChessGame();
-        game.setBoard(this.board.makeCopy());
-        game.getBoard().removePiece(move.getStartPosition());
-        game.getBoard().addPiece(move.getEndPosition(), piece);
-        game.setTeamTurn(piece.getTeamColor());
-        if (game.isInCheck(piece.getTeamColor())) {
-            throw new InvalidMoveException("Move puts own king in check");
-        }
         if (endPiece != null && endPiece.getTeamColor() != this.currentTeam) {
             caputuredPiece = true;
         }
-        this.board.removePiece(move.getStartPosition());
-        this.board.addPiece(move.getEndPosition(), piece);
+        doMove(move);
+        if (isInCheck(piece.getTeamColor())) {
+            undoMove();
+            throw new InvalidMoveException("Move puts own king in check");
+        }
+        // makeMove cannot be taken back, so drop the record doMove just pushed
+        this.undoDepth--;
+        this.undoCaptured[this.undoDepth] = null;
+        this.undoPromoted[this.undoDepth] = null;
+        clearLegalMoves();
+        this.ply++;
         if (!caputuredPiece) {
             this.setTeamTurn(this.currentTeam == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE);
         }
@@ -123,32 +350,24 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        Collection<ChessPiece> allPieces = this.board.getAllPieces();
-        for (ChessPiece piece : allPieces) {
-            if (piece.getTeamColor() != teamColor) {
-                Collection<ChessMove> moves = piece.pieceMoves(this.board, this.board.getPiecePosition(piece));
-                if (movesHitsKing(moves, teamColor, this.board)) {
-                    return true;
-                }
-            }
+        long kings = this.board.getBitboard(teamColor, ChessPiece.PieceType.KING);
+        if (kings == 0) {
+            return false;
         }
-        return false;
-    }
-
-    private boolean movesHitsKing(Collection<ChessMove> moves, TeamColor teamColor, ChessBoard board) {
-        for (ChessMove move : moves) {
-            ChessPiece endPiece = this.board.getPiece(move.getEndPosition());
-            if (endPiece == null) {
-                continue;
-            }
-            if (this.board.getPiece(move.getEndPosition()).getPieceType() == ChessPiece.PieceType.KING
-                    && this.board.getPiece(move.getEndPosition()).getTeamColor() == teamColor) {
+        TeamColor enemy = opponent(teamColor);
+        while (kings != 0) {
+            if (AttackTables.isSquareAttacked(this.board, Long.numberOfTrailingZeros(kings), enemy)) {
                 return true;
             }
+            kings &= kings - 1;
         }
         return false;
     }
 
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
     /**
      * Determines if the given team is in checkmate
      *
@@ -156,26 +375,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        Collection<ChessPiece> allPieces = this.board.getAllPieces();
-        for (ChessPiece piece : allPieces) {
-            if (piece.getTeamColor() != teamColor) {
-                continue;
-            } else {
-                Collection<ChessMove> moves = piece.pieceMoves(this.board, this.board.getPiecePosition(piece));
-                for (ChessMove move : moves) {
-                    ChessGame game = new ChessGame();
-                    game.setBoard(this.board.makeCopy());
-                    game.setTeamTurn(teamColor);
-                    try {
-                        game.makeMove(move);
-                        return false;
-                    } catch (InvalidMoveException e) {
-                        continue;
-                    }
-                }
-            }
-        }
-        return true;
+        return !hasLegalMove(teamColor);
     }
 
     /**
@@ -186,37 +386,102 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (this.isInCheck(teamColor)) {
-            return false;
-        }
-        Collection<ChessPiece> allPieces = this.board.getAllPieces();
         //returns true if the given team has no legal moves but the king is not in immediate danger
-        for (ChessPiece piece : allPieces) {
-            if (piece.getTeamColor() != teamColor) {
-                continue;
-            } else {
-                Collection<ChessMove> moves = piece.pieceMoves(this.board, this.board.getPiecePosition(piece));
-                if (hasValidMove(moves, piece, this.board)) {
-                    return false;
-                }
-            }
+        return !this.isInCheck(teamColor) && !hasLegalMove(teamColor);
+    }
+
+    /**
+     * Plays a move on the board in place without checking that it is legal, so it
+     * can be taken back with {@link #undoMove()}. Does not change whose turn it is.
+     *
+     * @param move a move produced by {@link ChessPiece#pieceMoves}
+     */
+    public void doMove(ChessMove move) {
+        doMove(PackedMove.of(move));
+    }
+
+    /**
+     * Same as {@link #doMove(ChessMove)} for a move packed as an int
+     *
+     * @param move a move produced by {@link MoveGenerator} or {@link #legalMoves(TeamColor, MoveList)}
+     */
+    public void doMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = this.board.getPiece(from);
+        ChessPiece captured = this.board.getPiece(to);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        pushUndo(from | to << 6, captured, promotion != null ? piece : null);
+
+        this.board.removePiece(ChessPosition.ofSquare(from));
+        if (promotion != null) {
+            // a new piece rather than changing the pawn's type, which would also change it
+            // for anyone else holding the pawn
+            piece = new ChessPiece(piece.getTeamColor(), promotion);
         }
-        return true;
+        this.board.addPiece(ChessPosition.ofSquare(to), piece);
     }
 
-    private boolean hasValidMove(Collection<ChessMove> moves, ChessPiece piece, ChessBoard board) {
-        for (ChessMove move : moves) {
-            ChessGame game = new ChessGame();
-            game.setBoard(board.makeCopy());
-            game.setTeamTurn(piece.getTeamColor());
-            try {
-                game.makeMove(move);
-                return true;
-            } catch (InvalidMoveException e) {
-                continue;
-            }
+    /**
+     * Takes back the last move played with {@link #doMove(ChessMove)}
+     */
+    public void undoMove() {
+        if (this.undoDepth == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        this.undoDepth--;
+        int record = this.undoMoves[this.undoDepth];
+        ChessPiece captured = this.undoCaptured[this.undoDepth];
+        ChessPiece promoted = this.undoPromoted[this.undoDepth];
+        this.undoCaptured[this.undoDepth] = null;
+        this.undoPromoted[this.undoDepth] = null;
+        ChessPosition from = ChessBoard.positionOf(record & 63);
+        ChessPosition to = ChessBoard.positionOf(record >>> 6 & 63);
+
+        ChessPiece piece = promoted != null ? promoted : this.board.getPiece(to);
+        this.board.removePiece(to);
+        this.board.addPiece(from, piece);
+        if (captured != null) {
+            this.board.addPiece(to, captured);
         }
-        return false;
+    }
+
+    private void pushUndo(int record, ChessPiece captured, ChessPiece promoted) {
+        if (this.undoMoves == null) {
+            this.undoMoves = new int[16];
+            this.undoCaptured = new ChessPiece[16];
+            this.undoPromoted = new ChessPiece[16];
+        } else if (this.undoDepth == this.undoMoves.length) {
+            this.undoMoves = Arrays.copyOf(this.undoMoves, this.undoDepth * 2);
+            this.undoCaptured = Arrays.copyOf(this.undoCaptured, this.undoDepth * 2);
+            this.undoPromoted = Arrays.copyOf(this.undoPromoted, this.undoDepth * 2);
+        }
+        this.undoMoves[this.undoDepth] = record;
+        this.undoCaptured[this.undoDepth] = captured;
+        this.undoPromoted[this.undoDepth] = promoted;
+        this.undoDepth++;
+    }
+
+    /**
+     * @return the number of moves played in this game with {@link #makeMove(ChessMove)}
+     */
+    public int getPly() {
+        return this.ply;
+    }
+
+    void setPly(int ply) {
+        this.ply = ply;
+    }
+
+    /**
+     * Gets the Zobrist key of the current position, including whose turn it is. The key is
+     * maintained incrementally by the board, so this is constant time.
+     *
+     * @return 64-bit hash of the pieces and the side to move
+     */
+    public long getZobristKey() {
+        long key = this.board.getZobristKey();
+        return this.currentTeam == TeamColor.BLACK ? key ^ Zobrist.SIDE_TO_MOVE : key;
     }
 
     /**
@@ -226,6 +491,12 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        clearLegalMoves();
+        if (this.undoCaptured != null) {
+            Arrays.fill(this.undoCaptured, 0, this.undoDepth, null);
+            Arrays.fill(this.undoPromoted, 0, this.undoDepth, null);
+        }
+        this.undoDepth = 0;
     }
 
     /**
@@ -0,0 +1,109 @@
+package chess;
+
+/**
+ * Packs a chess game into a fixed 37 byte array for storage, and moves into an int
+ * <p>
+ * Bytes 0 to 31 hold the 64 squares at 4 bits each, square (row - 1) * 8 + (column - 1)
+ * in the low nibble of byte square / 2 when even and the high nibble when odd. A nibble is
+ * 0 for an empty square, otherwise bit 3 is set for black and the low 3 bits are the
+ * piece type ordinal plus one. Byte 32 is the team whose turn it is and bytes 33 to 36 are
+ * the number of moves played, big-endian. The older 33 byte form without the move count
+ * is still accepted and decodes with a count of 0.
+ * <p>
+ * A move is packed as the from square in bits 0-5, the to square in bits 6-11 and the
+ * promotion piece type ordinal plus one (0 for none) in bits 12-14.
+ */
+public final class ChessGameCodec {
+    public static final int ENCODED_LENGTH = 37;
+    private static final int LEGACY_LENGTH = 33;
+    private static final int BLACK_FLAG = 8;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+
+    private ChessGameCodec() {
+    }
+
+    /**
+     * @param game the game to encode
+     * @return the game packed into {@link #ENCODED_LENGTH} bytes
+     */
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[ENCODED_LENGTH];
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece == null) {
+                continue;
+            }
+            int nibble = piece.getPieceType().ordinal() + 1;
+            if (piece.getTeamColor() == ChessGame.TeamColor.BLACK) {
+                nibble |= BLACK_FLAG;
+            }
+            bytes[square >>> 1] |= (byte) ((square & 1) == 0 ? nibble : nibble << 4);
+        }
+        bytes[32] = (byte) game.getTeamTurn().ordinal();
+        int ply = game.getPly();
+        bytes[33] = (byte) (ply >>> 24);
+        bytes[34] = (byte) (ply >>> 16);
+        bytes[35] = (byte) (ply >>> 8);
+        bytes[36] = (byte) ply;
+        return bytes;
+    }
+
+    /**
+     * @param bytes a game produced by {@link #encode(ChessGame)}
+     * @return a new game with the encoded board, team to move and move count
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes == null || (bytes.length != ENCODED_LENGTH && bytes.length != LEGACY_LENGTH)) {
+            throw new IllegalArgumentException("Encoded game must be " + ENCODED_LENGTH + " bytes");
+        }
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int nibble = (square & 1) == 0 ? bytes[square >>> 1] & 0xF : (bytes[square >>> 1] >>> 4) & 0xF;
+            if (nibble == 0) {
+                continue;
+            }
+            int type = (nibble & 7) - 1;
+            if (type < 0 || type >= TYPES.length) {
+                throw new IllegalArgumentException("Invalid piece code " + nibble + " on square " + square);
+            }
+            ChessGame.TeamColor color = (nibble & BLACK_FLAG) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            board.addPiece(ChessPosition.ofSquare(square), new ChessPiece(color, TYPES[type]));
+        }
+        if (bytes[32] < 0 || bytes[32] >= TEAMS.length) {
+            throw new IllegalArgumentException("Invalid team to move " + bytes[32]);
+        }
+        ChessGame game = new ChessGame(board, TEAMS[bytes[32]]);
+        if (bytes.length == ENCODED_LENGTH) {
+            int ply = (bytes[33] & 0xFF) << 24 | (bytes[34] & 0xFF) << 16 | (bytes[35] & 0xFF) << 8 | bytes[36] & 0xFF;
+            if (ply < 0) {
+                throw new IllegalArgumentException("Invalid move count " + ply);
+            }
+            game.setPly(ply);
+        }
+        return game;
+    }
+
+    /**
+     * @param move the move to encode
+     * @return the move packed into the low 15 bits of an int
+     */
+    public static int encodeMove(ChessMove move) {
+        return PackedMove.of(move);
+    }
+
+    /**
+     * @param encoded a move produced by {@link #encodeMove(ChessMove)}
+     * @return the decoded move
+     * @throws IllegalArgumentException if the value is not a valid encoding
+     */
+    public static ChessMove decodeMove(int encoded) {
+        int promotion = encoded >>> 12;
+        if (promotion > TYPES.length) {
+            throw new IllegalArgumentException("Invalid encoded move " + encoded);
+        }
+        return PackedMove.toChessMove(encoded);
+    }
+}
@@ -13,12 +13,59 @@ public class ChessMove {
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    // canonical non-promotion moves, indexed by start square * 64 + end square
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64];
+    // canonical promotions by start square * 64 + end square and then piece type ordinal,
+    // only filled in for a pawn stepping onto the first or last row
+    private static final ChessMove[][] PROMOTION_MOVES = new ChessMove[64 * 64][];
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                MOVES[from * 64 + to] = new ChessMove(ChessPosition.ofSquare(from), ChessPosition.ofSquare(to), null);
+            }
+        }
+        ChessPiece.PieceType[] types = ChessPiece.PieceType.values();
+        for (int column = 0; column < 8; column++) {
+            for (int step = -1; step <= 1; step++) {
+                if (column + step < 0 || column + step > 7) {
+                    continue;
+                }
+                int[][] fromTo = {{48 + column, 56 + column + step}, {8 + column, column + step}};
+                for (int[] squares : fromTo) {
+                    ChessMove[] promotions = new ChessMove[types.length];
+                    for (ChessPiece.PieceType type : types) {
+                        promotions[type.ordinal()] = new ChessMove(ChessPosition.ofSquare(squares[0]), ChessPosition.ofSquare(squares[1]), type);
+                    }
+                    PROMOTION_MOVES[squares[0] * 64 + squares[1]] = promotions;
+                }
+            }
+        }
+    }
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition, ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
         this.endPosition = endPosition;
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets a move, reusing a shared instance unless it is a promotion a pawn could not make
+     *
+     * @param startPosition  where the piece starts
+     * @param endPosition    where the piece ends up
+     * @param promotionPiece piece to promote to, or null
+     * @return the move
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition, ChessPiece.PieceType promotionPiece) {
+        int index = ChessBoard.squareOf(startPosition) * 64 + ChessBoard.squareOf(endPosition);
+        if (promotionPiece != null) {
+            ChessMove[] promotions = PROMOTION_MOVES[index];
+            return promotions != null ? promotions[promotionPiece.ordinal()] : new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return MOVES[index];
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -56,7 +103,10 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        // same value as Objects.hash(startPosition, endPosition, promotionPiece) without the varargs array
+        int result = 31 + Objects.hashCode(startPosition);
+        result = 31 * result + Objects.hashCode(endPosition);
+        return 31 * result + Objects.hashCode(promotionPiece);
     }
 
     @Override
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -10,8 +8,17 @@ import java.util.Objects;
  * !! needs to use index 1 - 8
  */
 public class ChessPosition {
-    private int row;
-    private int column;
+    private final int row;
+    private final int column;
+
+    // the 64 canonical positions, indexed the same way as the ChessBoard bitboards
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition((square >>> 3) + 1, (square & 7) + 1);
+        }
+    }
 
     public ChessPosition(int row, int col) {
         if (row < 1 || row > 8 || col < 1 || col > 8) {
@@ -21,6 +28,28 @@ public class ChessPosition {
         this.column = col;
     }
 
+    /**
+     * Gets the shared instance for a position instead of allocating a new one
+     *
+     * @param row    row from 1 to 8
+     * @param col    column from 1 to 8
+     * @return the canonical position for that row and column
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            throw new IllegalArgumentException("row or column out of bounds");
+        }
+        return POSITIONS[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @param square index from 0 (row 1, column 1) to 63 (row 8, column 8)
+     * @return the canonical position for that square
+     */
+    public static ChessPosition ofSquare(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -47,7 +76,8 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, column);
+        // same value as Objects.hash(row, column) without boxing
+        return 31 * (31 + row) + column;
     }
 
     @Override
@@ -0,0 +1,100 @@
+package chess;
+
+/**
+ * Pseudo-legal move generation on bitboards, into a {@link MoveList}
+ * <p>
+ * Moves follow the same rules as {@link ChessPiece#pieceMoves}: no castling and no
+ * en passant, and a pawn reaching the last row adds one move for each of bishop, knight,
+ * rook and queen. Moves that leave the mover's king attacked are included.
+ */
+public final class MoveGenerator {
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN
+    };
+    private static final long ROW_1 = 0xFFL;
+    private static final long ROW_8 = 0xFFL << 56;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Appends the pseudo-legal moves of every piece of a team, grouped by start square in
+     * square order
+     */
+    public static void generate(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        long pieces = board.getOccupancy(color);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            ChessPiece piece = board.getPiece(square);
+            addMoves(board, square, piece, targets(board, square, piece), moves);
+        }
+    }
+
+    /**
+     * @param board  the board the piece is on
+     * @param square where the piece stands
+     * @param piece  the piece to move, which need not actually be on that square
+     * @return the squares the piece could move to, ignoring checks
+     */
+    public static long targets(ChessBoard board, int square, ChessPiece piece) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long own = board.getOccupancy(color);
+        long occupied = board.getOccupancy();
+        switch (piece.getPieceType()) {
+            case KING:
+                return AttackTables.kingAttacks(square) & ~own;
+            case KNIGHT:
+                return AttackTables.knightAttacks(square) & ~own;
+            case BISHOP:
+                return AttackTables.bishopAttacks(square, occupied) & ~own;
+            case ROOK:
+                return AttackTables.rookAttacks(square, occupied) & ~own;
+            case QUEEN:
+                return AttackTables.queenAttacks(square, occupied) & ~own;
+            default:
+                return pawnTargets(board, square, color, occupied);
+        }
+    }
+
+    private static long pawnTargets(ChessBoard board, int square, ChessGame.TeamColor color, long occupied) {
+        long enemies = occupied & ~board.getOccupancy(color);
+        long captures = AttackTables.pawnAttacks(color, square) & enemies;
+        long pawn = 1L << square;
+        long pushes;
+        if (color == ChessGame.TeamColor.WHITE) {
+            long single = pawn << 8 & ~occupied;
+            // a pawn still on row 2 can go two if both squares ahead are empty
+            long twice = (pawn & ROW_1 << 8) != 0 ? single << 8 & ~occupied : 0;
+            pushes = single | twice;
+        } else {
+            long single = pawn >>> 8 & ~occupied;
+            long twice = (pawn & ROW_8 >>> 8) != 0 ? single >>> 8 & ~occupied : 0;
+            pushes = single | twice;
+        }
+        return pushes | captures;
+    }
+
+    /**
+     * Appends a move from a square to each target, four moves for a pawn reaching the last row
+     */
+    public static void addMoves(ChessBoard board, int from, ChessPiece piece, long targets, MoveList moves) {
+        long enemies = board.getOccupancy() & ~board.getOccupancy(piece.getTeamColor());
+        long lastRow = piece.getTeamColor() == ChessGame.TeamColor.WHITE ? ROW_8 : ROW_1;
+        boolean pawn = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            long bit = targets & -targets;
+            targets ^= bit;
+            int flags = (enemies & bit) != 0 ? PackedMove.CAPTURE : 0;
+            if (pawn && (lastRow & bit) != 0) {
+                for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                    moves.add(PackedMove.of(from, to, promotion, flags));
+                }
+            } else {
+                moves.add(PackedMove.of(from, to, null, flags));
+            }
+        }
+    }
+}
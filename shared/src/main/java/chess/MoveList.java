@@ -0,0 +1,75 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reusable buffer of {@link PackedMove packed moves}
+ * <p>
+ * Move generators append to it instead of building collections, so a search can keep one
+ * list per depth and clear it for each position rather than allocating per move.
+ */
+public final class MoveList {
+    // no legal chess position has more than 218 moves
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int move) {
+        if (this.size == this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, this.size * 2);
+        }
+        this.moves[this.size++] = move;
+    }
+
+    public int get(int index) {
+        if (index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+        }
+        return this.moves[index];
+    }
+
+    void set(int index, int move) {
+        this.moves[index] = move;
+    }
+
+    /**
+     * Drops every move from the given index on
+     */
+    void truncate(int size) {
+        this.size = Math.min(size, this.size);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * @return the moves as {@link ChessMove}s, for code that uses the public move API
+     */
+    public List<ChessMove> toChessMoves() {
+        List<ChessMove> chessMoves = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            chessMoves.add(PackedMove.toChessMove(this.moves[i]));
+        }
+        return chessMoves;
+    }
+}
@@ -0,0 +1,64 @@
+package chess;
+
+/**
+ * Helpers for moves packed into an int, for move generation that doesn't allocate
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square, both as
+ * (row - 1) * 8 + (column - 1). Bits 12-14 hold the promotion piece's ordinal plus one, or
+ * 0 for no promotion. Bit 15 is set when the move captures. Without the capture flag this
+ * is the same value {@link ChessGameCodec#encodeMove(ChessMove)} stores.
+ */
+public final class PackedMove {
+    public static final int CAPTURE = 1 << 15;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    /**
+     * @param from      the start square
+     * @param to        the end square
+     * @param promotion the piece to promote to, or null
+     * @param flags     {@link #CAPTURE} or 0
+     * @return the packed move
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from | to << 6 | (promotion == null ? 0 : promotion.ordinal() + 1) << 12 | flags;
+    }
+
+    /**
+     * @return the move packed without flags
+     */
+    public static int of(ChessMove move) {
+        return of(ChessBoard.squareOf(move.getStartPosition()), ChessBoard.squareOf(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    /**
+     * @return the piece the move promotes to, or null
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = move >>> 12 & 7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return the move as a {@link ChessMove}, a shared instance wherever {@link ChessMove#of} has one
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(ChessPosition.ofSquare(from(move)), ChessPosition.ofSquare(to(move)), promotion(move));
+    }
+}
@@ -0,0 +1,88 @@
+package chess;
+
+/**
+ * Counts leaf nodes of the legal move tree (perft) for measuring and checking move generation
+ * <p>
+ * This engine does not implement castling or en passant, so counts only match the published
+ * perft numbers for positions and depths where neither can come up.
+ */
+public final class Perft {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w";
+    // "position 3" from the chess programming wiki perft results, 14 / 191 at depth 1 / 2
+    public static final String ENDGAME_POSITION = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w";
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the legal move sequences of a given length from the game's current position.
+     * The side to move alternates on every ply.
+     *
+     * @param game  the game to search, left unchanged when this returns
+     * @param depth number of plies to search
+     * @return number of leaf nodes
+     */
+    public static long perft(ChessGame game, int depth) {
+        // one move list per ply, reused across the whole search
+        MoveList[] lists = new MoveList[Math.max(depth, 0)];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(game, game.getTeamTurn(), depth, lists);
+    }
+
+    private static long perft(ChessGame game, ChessGame.TeamColor color, int depth, MoveList[] lists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = lists[depth - 1];
+        game.legalMoves(color, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        ChessGame.TeamColor opponent = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            nodes += perft(game, opponent, depth - 1, lists);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Builds a game from the piece placement and side to move fields of a FEN string.
+     * Castling rights, en passant and move counters are ignored.
+     *
+     * @param fen the position in Forsyth-Edwards notation
+     * @return a game set up in that position
+     */
+    public static ChessGame loadFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int column = 1;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                row--;
+                column = 1;
+            } else if (Character.isDigit(c)) {
+                column += c - '0';
+            } else {
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+                    case 'k' -> ChessPiece.PieceType.KING;
+                    case 'q' -> ChessPiece.PieceType.QUEEN;
+                    case 'r' -> ChessPiece.PieceType.ROOK;
+                    case 'b' -> ChessPiece.PieceType.BISHOP;
+                    case 'n' -> ChessPiece.PieceType.KNIGHT;
+                    case 'p' -> ChessPiece.PieceType.PAWN;
+                    default -> throw new IllegalArgumentException("Unknown piece in FEN: " + c);
+                };
+                board.addPiece(ChessPosition.of(row, column), new ChessPiece(color, type));
+                column++;
+            }
+        }
+        return new ChessGame(board, fields.length > 1 && fields[1].equals("b") ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+    }
+}
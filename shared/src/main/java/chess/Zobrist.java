@@ -0,0 +1,42 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing of chess positions
+ * <p>
+ * A position's key is the XOR of the key for every (color, type, square) that holds a piece,
+ * plus {@link #SIDE_TO_MOVE} when black is to move. Adding or removing a piece is one XOR.
+ */
+public final class Zobrist {
+    public static final long SIDE_TO_MOVE;
+    private static final long[][] PIECE_KEYS = new long[12][64];
+
+    static {
+        // fixed seed so keys are the same on every run and on both client and server
+        SplittableRandom random = new SplittableRandom(0x240C4E55L);
+        for (long[] keys : PIECE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        SIDE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param color  team the piece belongs to
+     * @param type   type of the piece
+     * @param square square index from 0 (row 1, column 1) to 63 (row 8, column 8)
+     * @return the key for that piece standing on that square
+     */
+    public static long pieceKey(ChessGame.TeamColor color, ChessPiece.PieceType type, int square) {
+        return PIECE_KEYS[color.ordinal() * 6 + type.ordinal()][square];
+    }
+
+    static long pieceKey(int bitboardIndex, int square) {
+        return PIECE_KEYS[bitboardIndex][square];
+    }
+}
@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * A game as it appears in the game list: who is playing it, without the board.
+ */
+public record GameSummary(Integer gameID, String whiteUsername, String blackUsername, String gameName, Status status) {
+    public enum Status {
+        WAITING_FOR_PLAYERS,
+        IN_PROGRESS
+    }
+
+    public GameSummary(Integer gameID, String whiteUsername, String blackUsername, String gameName) {
+        this(gameID, whiteUsername, blackUsername, gameName,
+                whiteUsername == null || blackUsername == null ? Status.WAITING_FOR_PLAYERS : Status.IN_PROGRESS);
+    }
+
+    public static GameSummary of(GameData game) {
+        return new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName());
+    }
+}
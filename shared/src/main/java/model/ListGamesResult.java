@@ -2,5 +2,12 @@ package model;
 
 import java.util.List;
 
-public record ListGamesResult(List<GameData> games) {
+/**
+ * One page of the game list. {@code nextCursor} is the value to pass as the cursor to get the
+ * next page, or null when this is the last one.
+ */
+public record ListGamesResult(List<GameSummary> games, Integer nextCursor) {
+    public ListGamesResult(List<GameSummary> games) {
+        this(games, null);
+    }
 }
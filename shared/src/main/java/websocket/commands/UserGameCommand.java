@@ -20,6 +20,9 @@ public class UserGameCommand {
 
     private ChessMove move;
 
+    // set on CONNECT by clients that apply MOVE_APPLIED messages themselves
+    private Boolean moveUpdates;
+
     public UserGameCommand(CommandType commandType, String authToken, Integer gameID) {
         this.commandType = commandType;
         this.authToken = authToken;
@@ -30,13 +33,26 @@ public class UserGameCommand {
         CONNECT,
         MAKE_MOVE,
         LEAVE,
-        RESIGN
+        RESIGN,
+        // asks for a fresh LOAD_GAME, for a client whose copy of the game is out of step
+        RESYNC
     }
 
     public void addMove(ChessMove move) {
         this.move = move;
     }
 
+    /**
+     * Asks to be sent MOVE_APPLIED messages after moves instead of the whole game
+     */
+    public void requestMoveUpdates() {
+        this.moveUpdates = true;
+    }
+
+    public boolean wantsMoveUpdates() {
+        return Boolean.TRUE.equals(moveUpdates);
+    }
+
     public CommandType getCommandType() {
         return commandType;
     }
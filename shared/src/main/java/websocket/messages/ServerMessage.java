@@ -1,5 +1,7 @@
 package websocket.messages;
 
+import chess.ChessGame;
+import chess.ChessMove;
 import model.GameData;
 
 import java.util.Objects;
@@ -15,11 +17,17 @@ public class ServerMessage {
     GameData game;
     String errorMessage;
     String message;
+    ChessMove move;
+    Integer ply;
+    ChessGame.GameStatus status;
 
     public enum ServerMessageType {
         LOAD_GAME,
         ERROR,
-        NOTIFICATION
+        NOTIFICATION,
+        // a move to play on the client's copy of the game, sent instead of LOAD_GAME
+        // to clients that asked for it when they connected
+        MOVE_APPLIED
     }
 
     public ServerMessage(ServerMessageType type) {
@@ -38,6 +46,17 @@ public class ServerMessage {
         this.message = notificationMessage;
     }
 
+    /**
+     * @param move   the move that was played
+     * @param ply    the game's move count after the move, so a client can tell if it missed one
+     * @param status where the game stands for the team to move next
+     */
+    public void addMoveApplied(ChessMove move, int ply, ChessGame.GameStatus status) {
+        this.move = move;
+        this.ply = ply;
+        this.status = status;
+    }
+
     public ServerMessageType getServerMessageType() {
         return this.serverMessageType;
     }
@@ -54,6 +73,18 @@ public class ServerMessage {
         return this.message;
     }
 
+    public ChessMove getMove() {
+        return this.move;
+    }
+
+    public Integer getPly() {
+        return this.ply;
+    }
+
+    public ChessGame.GameStatus getStatus() {
+        return this.status;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,64 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class AttackTablesTests {
+
+    /**
+     * Leaper tables should clip at the edge of the board.
+     */
+    @Test
+    public void testLeaperAttacksInCorner() {
+        int a1 = ChessBoard.squareOf(new ChessPosition(1, 1));
+        assertEquals(2, Long.bitCount(AttackTables.knightAttacks(a1)));
+        assertEquals(3, Long.bitCount(AttackTables.kingAttacks(a1)));
+        assertEquals(0, AttackTables.pawnAttacks(ChessGame.TeamColor.BLACK, a1));
+    }
+
+    /**
+     * Sliding attacks should stop at, and include, the first blocker.
+     */
+    @Test
+    public void testRookAttacksStopAtBlocker() {
+        int a1 = ChessBoard.squareOf(new ChessPosition(1, 1));
+        int a4 = ChessBoard.squareOf(new ChessPosition(4, 1));
+        long attacks = AttackTables.rookAttacks(a1, 1L << a4);
+        assertNotEquals(0, attacks & 1L << a4);
+        assertEquals(0, attacks & 1L << ChessBoard.squareOf(new ChessPosition(5, 1)));
+        assertEquals(3 + 7, Long.bitCount(attacks));
+    }
+
+    /**
+     * A pinned-looking bishop behind a pawn should not attack the square past the pawn.
+     */
+    @Test
+    public void testIsSquareAttacked() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        board.addPiece(new ChessPosition(3, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertTrue(AttackTables.isSquareAttacked(board, ChessBoard.squareOf(new ChessPosition(3, 3)), ChessGame.TeamColor.BLACK));
+        assertFalse(AttackTables.isSquareAttacked(board, ChessBoard.squareOf(new ChessPosition(4, 4)), ChessGame.TeamColor.BLACK));
+        assertTrue(AttackTables.isSquareAttacked(board, ChessBoard.squareOf(new ChessPosition(4, 4)), ChessGame.TeamColor.WHITE));
+        assertFalse(AttackTables.isSquareAttacked(board, ChessBoard.squareOf(new ChessPosition(4, 3)), ChessGame.TeamColor.WHITE));
+    }
+
+    /**
+     * The magic tables should agree with walking each ray, for any set of blockers.
+     */
+    @Test
+    public void testMagicAttacksMatchRays() {
+        Random random = new Random(7);
+        for (int square = 0; square < 64; square++) {
+            for (int i = 0; i < 200; i++) {
+                long occupied = random.nextLong() & random.nextLong();
+                assertEquals(AttackTables.rayRookAttacks(square, occupied), AttackTables.rookAttacks(square, occupied));
+                assertEquals(AttackTables.rayBishopAttacks(square, occupied), AttackTables.bishopAttacks(square, occupied));
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ChessBoardBitboardTests {
+
+    private ChessBoard board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new ChessBoard();
+        board.resetBoard();
+    }
+
+    /**
+     * The starting position should have the usual occupancy masks.
+     */
+    @Test
+    public void testResetBoardOccupancy() {
+        assertEquals(0x000000000000FFFFL, board.getOccupancy(ChessGame.TeamColor.WHITE));
+        assertEquals(0xFFFF000000000000L, board.getOccupancy(ChessGame.TeamColor.BLACK));
+        assertEquals(1L << 4, board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        assertEquals(0x00FF000000000000L, board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+    }
+
+    /**
+     * Adding over an occupied square and removing a piece should keep the masks in sync with the grid.
+     */
+    @Test
+    public void testAddAndRemoveKeepsBitboardsInSync() {
+        ChessPosition e2 = new ChessPosition(2, 5);
+        board.addPiece(e2, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        long bit = 1L << ChessBoard.squareOf(e2);
+        assertEquals(0, board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN) & bit);
+        assertEquals(0, board.getOccupancy(ChessGame.TeamColor.WHITE) & bit);
+        assertNotEquals(0, board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN) & bit);
+
+        board.removePiece(e2);
+        assertEquals(0, board.getOccupancy() & bit);
+        assertNull(board.getPiece(ChessBoard.squareOf(e2)));
+    }
+
+    /**
+     * A board read back from JSON should rebuild its bitboards from the grid.
+     */
+    @Test
+    public void testBitboardsRebuiltAfterDeserialization() {
+        Gson gson = new Gson();
+        ChessBoard copy = gson.fromJson(gson.toJson(board), ChessBoard.class);
+        assertEquals(board.getOccupancy(), copy.getOccupancy());
+        assertEquals(board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
+                copy.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+    }
+
+    /**
+     * The incrementally updated key should match a board built from scratch with the same pieces.
+     */
+    @Test
+    public void testZobristKeyMatchesAfterMoves() {
+        ChessGame game = new ChessGame();
+        game.doMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.doMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.doMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+
+        Gson gson = new Gson();
+        ChessBoard rebuilt = gson.fromJson(gson.toJson(game.getBoard()), ChessBoard.class);
+        assertEquals(rebuilt.getZobristKey(), game.getBoard().getZobristKey());
+        assertNotEquals(board.getZobristKey(), game.getBoard().getZobristKey());
+
+        game.undoMove();
+        game.undoMove();
+        game.undoMove();
+        assertEquals(board.getZobristKey(), game.getBoard().getZobristKey());
+    }
+
+    /**
+     * The game key should change with the side to move while the board key does not.
+     */
+    @Test
+    public void testGameKeyIncludesSideToMove() {
+        ChessGame game = new ChessGame();
+        long whiteToMove = game.getZobristKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertNotEquals(whiteToMove, game.getZobristKey());
+        assertEquals(whiteToMove, game.getBoard().getZobristKey());
+    }
+
+    /**
+     * Piece lookups and iteration should follow pieces as they move, without scanning the board.
+     */
+    @Test
+    public void testPieceLookupsFollowMoves() {
+        assertEquals(new ChessPosition(1, 5), board.getKingPosition(ChessGame.TeamColor.WHITE));
+        assertEquals(new ChessPosition(8, 5), board.getKingPosition(ChessGame.TeamColor.BLACK));
+
+        ChessPiece knight = board.getPiece(new ChessPosition(1, 2));
+        board.removePiece(new ChessPosition(1, 2));
+        board.addPiece(new ChessPosition(3, 3), knight);
+        assertEquals(new ChessPosition(3, 3), board.getPiecePosition(knight));
+        assertNull(board.getPiecePosition(knight.makeCopy()), "Pieces should be found by identity");
+
+        List<ChessPosition> visited = new ArrayList<>();
+        board.forEachPiece(ChessGame.TeamColor.WHITE, (piece, position) -> {
+            assertSame(piece, board.getPiece(position));
+            visited.add(position);
+        });
+        assertEquals(16, visited.size());
+        assertTrue(visited.contains(new ChessPosition(3, 3)));
+        assertEquals(32, board.getAllPieces().size());
+
+        board.removePiece(new ChessPosition(1, 5));
+        assertNull(board.getKingPosition(ChessGame.TeamColor.WHITE));
+    }
+}
@@ -0,0 +1,75 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ChessGameCodecTests {
+
+    /**
+     * A game should come back with the same board and team to move.
+     */
+    @Test
+    public void testRoundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        byte[] bytes = ChessGameCodec.encode(game);
+        assertEquals(ChessGameCodec.ENCODED_LENGTH, bytes.length);
+
+        ChessGame decoded = ChessGameCodec.decode(bytes);
+        assertEquals(game.getBoard(), decoded.getBoard());
+        assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        assertEquals(1, decoded.getPly());
+    }
+
+    /**
+     * Games stored before the move count was added should still decode, with a count of 0.
+     */
+    @Test
+    public void testDecodesLegacyLength() {
+        byte[] bytes = java.util.Arrays.copyOf(ChessGameCodec.encode(new ChessGame()), 33);
+        ChessGame decoded = ChessGameCodec.decode(bytes);
+        assertEquals(new ChessGame().getBoard(), decoded.getBoard());
+        assertEquals(0, decoded.getPly());
+    }
+
+    /**
+     * Moves, including promotions, should come back unchanged.
+     */
+    @Test
+    public void testMoveRoundTrip() {
+        ChessMove quiet = ChessMove.of(ChessPosition.of(1, 2), ChessPosition.of(3, 3), null);
+        ChessMove promotion = ChessMove.of(ChessPosition.of(7, 8), ChessPosition.of(8, 8), ChessPiece.PieceType.KNIGHT);
+        assertEquals(quiet, ChessGameCodec.decodeMove(ChessGameCodec.encodeMove(quiet)));
+        assertEquals(promotion, ChessGameCodec.decodeMove(ChessGameCodec.encodeMove(promotion)));
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decodeMove(7 << 12));
+    }
+
+    /**
+     * An empty board encodes to all zero squares.
+     */
+    @Test
+    public void testEmptyBoard() {
+        ChessGame game = new ChessGame();
+        game.setBoard(new ChessBoard());
+        byte[] bytes = ChessGameCodec.encode(game);
+        for (int i = 0; i < 32; i++) {
+            assertEquals(0, bytes[i]);
+        }
+        assertEquals(new ChessBoard(), ChessGameCodec.decode(bytes).getBoard());
+    }
+
+    /**
+     * Input of the wrong length or with an unknown piece code should be rejected.
+     */
+    @Test
+    public void testDecodeRejectsBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(new byte[10]));
+        byte[] bytes = new byte[ChessGameCodec.ENCODED_LENGTH];
+        bytes[0] = 7;
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(bytes));
+    }
+}
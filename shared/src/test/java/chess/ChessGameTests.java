@@ -0,0 +1,211 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ChessGameTests {
+
+    private ChessGame game;
+
+    @BeforeEach
+    public void setUp() {
+        game = new ChessGame();
+    }
+
+    /**
+     * Playing a sequence of moves and undoing them should give back the original board.
+     */
+    @Test
+    public void testDoMoveUndoMoveRestoresBoard() {
+        ChessBoard original = game.getBoard().makeCopy();
+        game.doMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.doMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.doMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+        assertNotEquals(original, game.getBoard());
+
+        game.undoMove();
+        game.undoMove();
+        game.undoMove();
+        assertEquals(original, game.getBoard());
+        assertEquals(original.getOccupancy(), game.getBoard().getOccupancy());
+    }
+
+    /**
+     * Promotion should put a new piece on the board, and undoing it should put the same pawn
+     * back, and the captured piece back on its square.
+     */
+    @Test
+    public void testUndoPromotionCapture() {
+        ChessBoard board = new ChessBoard();
+        ChessPiece pawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        ChessPiece rook = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        board.addPiece(new ChessPosition(7, 1), pawn);
+        board.addPiece(new ChessPosition(8, 2), rook);
+        game.setBoard(board);
+
+        game.doMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN));
+        assertEquals(ChessPiece.PieceType.QUEEN, board.getPiece(new ChessPosition(8, 2)).getPieceType());
+        assertNull(board.getPiece(new ChessPosition(7, 1)));
+        assertEquals(ChessPiece.PieceType.PAWN, pawn.getPieceType(), "The promoted pawn object should not change type");
+
+        game.undoMove();
+        assertSame(pawn, board.getPiece(new ChessPosition(7, 1)));
+        assertEquals(ChessPiece.PieceType.PAWN, pawn.getPieceType());
+        assertSame(rook, board.getPiece(new ChessPosition(8, 2)));
+        assertEquals(0, board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+    }
+
+    /**
+     * Undo with nothing on the stack is a programming error.
+     */
+    @Test
+    public void testUndoWithoutMoveThrows() {
+        assertThrows(IllegalStateException.class, () -> game.undoMove());
+    }
+
+    /**
+     * Repeated queries on the same position should return the cached move list.
+     */
+    @Test
+    public void testValidMovesCachedUntilPositionChanges() throws InvalidMoveException {
+        ChessPosition e2 = new ChessPosition(2, 5);
+        var first = game.validMoves(e2);
+        assertSame(first, game.validMoves(e2));
+        assertFalse(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        assertSame(first, game.validMoves(e2));
+
+        game.makeMove(new ChessMove(e2, new ChessPosition(4, 5), null));
+        assertNull(game.validMoves(e2));
+        assertEquals(2, game.validMoves(new ChessPosition(7, 5)).size());
+    }
+
+    /**
+     * Changing the board directly, without makeMove, should not serve stale moves.
+     */
+    @Test
+    public void testValidMovesSeesDirectBoardChanges() {
+        ChessPosition e2 = new ChessPosition(2, 5);
+        assertEquals(2, game.validMoves(e2).size());
+        game.getBoard().addPiece(new ChessPosition(3, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        assertEquals(0, game.validMoves(e2).size());
+    }
+
+    /**
+     * A piece pinned to its king should only move along the pin.
+     */
+    @Test
+    public void testPinnedPieceStaysOnPinLine() {
+        ChessGame pinned = Perft.loadFen("4r2k/8/8/8/8/8/4R3/4K3 w");
+        var rookMoves = pinned.validMoves(new ChessPosition(2, 5));
+        assertEquals(6, rookMoves.size(), "The rook should only move up the file or take the pinning rook");
+        for (ChessMove move : rookMoves) {
+            assertEquals(5, move.getEndPosition().getColumn());
+        }
+    }
+
+    /**
+     * In double check only the king may move.
+     */
+    @Test
+    public void testDoubleCheckOnlyKingMoves() {
+        ChessGame doubleCheck = Perft.loadFen("4r2k/8/8/8/1b6/8/3Q4/4K3 w");
+        for (ChessMove move : legalMoves(doubleCheck, ChessGame.TeamColor.WHITE)) {
+            assertEquals(new ChessPosition(1, 5), move.getStartPosition(), "Only the king should be able to move");
+        }
+        assertFalse(legalMoves(doubleCheck, ChessGame.TeamColor.WHITE).isEmpty());
+    }
+
+    /**
+     * The pin and check masks should give the same moves as playing each candidate
+     * and seeing if the king is left attacked, over many random positions.
+     */
+    @Test
+    public void testLegalMovesMatchTrialMoves() {
+        Random random = new Random(42);
+        for (int gameNumber = 0; gameNumber < 50; gameNumber++) {
+            ChessGame played = new ChessGame();
+            ChessGame.TeamColor color = ChessGame.TeamColor.WHITE;
+            for (int ply = 0; ply < 80; ply++) {
+                var legal = legalMoves(played, color);
+                assertEquals(trialMoves(played, color), legal);
+                if (legal.isEmpty()) {
+                    break;
+                }
+                ChessMove[] choices = legal.toArray(new ChessMove[0]);
+                played.doMove(choices[random.nextInt(choices.length)]);
+                color = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            }
+        }
+    }
+
+    private static Set<ChessMove> legalMoves(ChessGame played, ChessGame.TeamColor color) {
+        MoveList moves = new MoveList();
+        played.legalMoves(color, moves);
+        return new HashSet<>(moves.toChessMoves());
+    }
+
+    private static Set<ChessMove> trialMoves(ChessGame played, ChessGame.TeamColor color) {
+        Set<ChessMove> moves = new HashSet<>();
+        ChessBoard board = played.getBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece == null || piece.getTeamColor() != color) {
+                continue;
+            }
+            for (ChessMove move : piece.pieceMoves(board, ChessPosition.ofSquare(square))) {
+                played.doMove(move);
+                if (!played.isInCheck(color)) {
+                    moves.add(move);
+                }
+                played.undoMove();
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * status should tell checkmate, stalemate, check and a normal position apart.
+     */
+    @Test
+    public void testStatus() {
+        assertEquals(ChessGame.GameStatus.NORMAL, game.status(ChessGame.TeamColor.WHITE));
+        ChessGame foolsMate = Perft.loadFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w");
+        assertEquals(ChessGame.GameStatus.CHECKMATE, foolsMate.status(ChessGame.TeamColor.WHITE));
+        ChessGame stalemate = Perft.loadFen("7k/5Q2/6K1/8/8/8/8/8 b");
+        assertEquals(ChessGame.GameStatus.STALEMATE, stalemate.status(ChessGame.TeamColor.BLACK));
+        ChessGame check = Perft.loadFen("4k3/8/8/8/8/8/8/4R1K1 b");
+        assertEquals(ChessGame.GameStatus.CHECK, check.status(ChessGame.TeamColor.BLACK));
+        assertThrows(IllegalArgumentException.class, () -> game.status(null));
+    }
+
+    /**
+     * status should agree with the separate check, checkmate and stalemate queries.
+     */
+    @Test
+    public void testStatusMatchesSeparateQueries() {
+        Random random = new Random(11);
+        for (int gameNumber = 0; gameNumber < 30; gameNumber++) {
+            ChessGame played = new ChessGame();
+            ChessGame.TeamColor color = ChessGame.TeamColor.WHITE;
+            for (int ply = 0; ply < 100; ply++) {
+                ChessGame.GameStatus status = played.status(color);
+                boolean noMoves = legalMoves(played, color).isEmpty();
+                assertEquals(noMoves, status == ChessGame.GameStatus.CHECKMATE || status == ChessGame.GameStatus.STALEMATE);
+                assertEquals(played.isInCheck(color), status == ChessGame.GameStatus.CHECK || status == ChessGame.GameStatus.CHECKMATE);
+                assertEquals(played.isInStalemate(color), status == ChessGame.GameStatus.STALEMATE);
+                if (noMoves) {
+                    break;
+                }
+                ChessMove[] choices = legalMoves(played, color).toArray(new ChessMove[0]);
+                played.doMove(choices[random.nextInt(choices.length)]);
+                color = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class MoveListTests {
+
+    /**
+     * Packing a move and reading it back should give the same squares, promotion and flags.
+     */
+    @Test
+    public void testPackedMoveRoundTrip() {
+        int move = PackedMove.of(52, 61, ChessPiece.PieceType.KNIGHT, PackedMove.CAPTURE);
+        assertEquals(52, PackedMove.from(move));
+        assertEquals(61, PackedMove.to(move));
+        assertEquals(ChessPiece.PieceType.KNIGHT, PackedMove.promotion(move));
+        assertTrue(PackedMove.isCapture(move));
+        ChessMove chessMove = PackedMove.toChessMove(move);
+        assertEquals(new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 6), ChessPiece.PieceType.KNIGHT), chessMove);
+        assertSame(chessMove, PackedMove.toChessMove(move), "Pawn promotions should be shared instances");
+    }
+
+    /**
+     * The list should grow past its starting capacity and be reusable after clear.
+     */
+    @Test
+    public void testListGrowsAndClears() {
+        MoveList moves = new MoveList(2);
+        for (int i = 0; i < 10; i++) {
+            moves.add(i);
+        }
+        assertEquals(10, moves.size());
+        assertEquals(9, moves.get(9));
+        moves.clear();
+        assertTrue(moves.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> moves.get(0));
+    }
+
+    /**
+     * Packed legal moves should be the same moves validMoves gives square by square.
+     */
+    @Test
+    public void testPackedLegalMovesMatchChessMoves() {
+        ChessGame game = Perft.loadFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        MoveList moves = new MoveList();
+        game.legalMoves(ChessGame.TeamColor.WHITE, moves);
+        assertEquals(validMoves(game, ChessGame.TeamColor.WHITE), new HashSet<>(moves.toChessMoves()));
+        game.legalMoves(ChessGame.TeamColor.BLACK, moves);
+        assertEquals(validMoves(game, ChessGame.TeamColor.BLACK), new HashSet<>(moves.toChessMoves()));
+    }
+
+    private static Set<ChessMove> validMoves(ChessGame game, ChessGame.TeamColor color) {
+        Set<ChessMove> moves = new HashSet<>();
+        game.getBoard().forEachPiece(color, (piece, position) -> moves.addAll(game.validMoves(position)));
+        return moves;
+    }
+}
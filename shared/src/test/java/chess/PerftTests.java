@@ -0,0 +1,44 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class PerftTests {
+
+    /**
+     * The opening position has no castling or en passant within four plies,
+     * so it should match the published counts.
+     */
+    @Test
+    public void testStartPosition() {
+        ChessGame game = Perft.loadFen(Perft.START_POSITION);
+        assertEquals(20, Perft.perft(game, 1));
+        assertEquals(400, Perft.perft(game, 2));
+        assertEquals(8902, Perft.perft(game, 3));
+        assertEquals(197281, Perft.perft(game, 4));
+    }
+
+    /**
+     * Rook and pawn endgame with checks and pins.
+     */
+    @Test
+    public void testEndgamePosition() {
+        ChessGame game = Perft.loadFen(Perft.ENDGAME_POSITION);
+        assertEquals(14, Perft.perft(game, 1));
+        assertEquals(191, Perft.perft(game, 2));
+    }
+
+    /**
+     * Perft should leave the game exactly as it found it.
+     */
+    @Test
+    public void testPerftLeavesBoardUnchanged() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = game.getBoard().makeCopy();
+        Perft.perft(game, 3);
+        assertEquals(before, game.getBoard());
+        assertEquals(before.getOccupancy(), game.getBoard().getOccupancy());
+    }
+}